@@ -0,0 +1,35 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.service.impl.UserServiceImpl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+/**
+ * Builds services for the benchmarks from only the collaborators a benchmark exercises, so that a
+ * new constructor dependency of the service does not require editing every benchmark.
+ */
+final class BenchmarkServices {
+    private BenchmarkServices() {
+    }
+
+    /**
+     * Passes each collaborator to the constructor parameter of its type and null to the others.
+     */
+    static UserServiceImpl userService(Object... collaborators) {
+        return construct(UserServiceImpl.class, collaborators);
+    }
+
+    private static <T> T construct(Class<T> type, Object... collaborators) {
+        Constructor<?> constructor = type.getConstructors()[0];
+        Object[] args = Arrays.stream(constructor.getParameterTypes())
+                .map(parameter -> Arrays.stream(collaborators).filter(parameter::isInstance).findFirst().orElse(null))
+                .toArray();
+        try {
+            return type.cast(constructor.newInstance(args));
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic users for the benchmarks, so that runs are comparable.
+ */
+final class BenchmarkUsers {
+    static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    static final int BIRTH_DATE_SPAN_DAYS = 50 * 365;
+
+    private BenchmarkUsers() {
+    }
+
+    static List<User> users(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(i, FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_SPAN_DAYS))));
+        }
+        return users;
+    }
+
+    static User user(long id, LocalDate birthDate) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .firstName("First" + id)
+                .lastName("Last" + id)
+                .birthDate(birthDate)
+                .address(id + " Main St")
+                .phone(String.format("+380%09d", id))
+                .version(0L)
+                .build();
+    }
+
+    static UserDTO userDTO(long id) {
+        return UserDTO.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .firstName("First" + id)
+                .lastName("Last" + id)
+                .birthDate(FIRST_BIRTH_DATE.plusDays(id % BIRTH_DATE_SPAN_DAYS))
+                .address(id + " Main St")
+                .phone(String.format("+380%09d", id))
+                .version(0L)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.repository.UserStore;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stand-in for {@link UserStore} that answers birth-date range queries from a sorted list,
+ * the way the index on birth_date does, so the benchmark measures the service rather than Postgres.
+ * Like the JPA projection, it builds a new {@link UserDTO} per returned row. Any other
+ * method throws.
+ */
+final class InMemoryUserRepository {
+    private final List<User> usersByBirthDate;
+
+    private InMemoryUserRepository(List<User> users) {
+        this.usersByBirthDate = users.stream()
+                .sorted(Comparator.comparing(User::getBirthDate))
+                .toList();
+    }
+
+    static UserStore create(List<User> users) {
+        InMemoryUserRepository repository = new InMemoryUserRepository(users);
+        return (UserStore) Proxy.newProxyInstance(UserStore.class.getClassLoader(),
+                new Class<?>[]{UserStore.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findUserDTOsByBirthDateBetween")) {
+                        return repository.findUserDTOsByBirthDateBetween((LocalDate) args[0], (LocalDate) args[1]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private List<UserDTO> findUserDTOsByBirthDateBetween(LocalDate from, LocalDate to) {
+        int start = firstIndexNotBefore(from);
+        int end = firstIndexNotBefore(to.plusDays(1));
+        List<UserDTO> users = new ArrayList<>(end - start);
+        for (User user : usersByBirthDate.subList(start, end)) {
+            users.add(new UserDTO(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                    user.getBirthDate(), user.getAddress(), user.getPhone(), user.getVersion()));
+        }
+        return users;
+    }
+
+    private int firstIndexNotBefore(LocalDate date) {
+        int low = 0;
+        int high = usersByBirthDate.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (usersByBirthDate.get(middle).getBirthDate().isBefore(date)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,62 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.index.PrefixIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 autocomplete lookups over the emails of {@code size} users. A short prefix matches most
+ * users, a long one a handful; both should take the same few microseconds at any size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class PrefixIndexBenchmark {
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private PrefixIndex index;
+    private String longPrefix;
+
+    @Setup
+    public void setUp() {
+        index = new PrefixIndex();
+        for (long id = 0; id < size; id++) {
+            UserDTO user = BenchmarkUsers.userDTO(id);
+            index.add(user.getEmail(), id);
+        }
+        longPrefix = "user" + (size / 2);
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Match> findShortPrefix() {
+        return index.find("user1", 10);
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Match> findLongPrefix() {
+        return index.find(longPrefix, 10);
+    }
+
+    @Benchmark
+    public void addAndRemove() {
+        index.add("new.user@example.com", -1);
+        index.remove("new.user@example.com", -1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.mapper.UserDTOMapper;
+import com.norbert.clearsolutions.service.impl.UserServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserServiceImpl#searchByBirthDateRange} over 100k users held by {@link InMemoryUserRepository}.
+ * With users spread over 50 years, a 30-day range returns about 160 of them and a 10-year range about 20k.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SearchByBirthDateRangeBenchmark {
+    private static final int USERS = 100_000;
+
+    @Param({"30", "3650"})
+    private int rangeDays;
+
+    private UserServiceImpl userService;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setUp() {
+        userService = BenchmarkServices.userService(InMemoryUserRepository.create(BenchmarkUsers.users(USERS)), new UserDTOMapper());
+        from = BenchmarkUsers.FIRST_BIRTH_DATE.plusDays(BenchmarkUsers.BIRTH_DATE_SPAN_DAYS / 2);
+        to = from.plusDays(rangeDays - 1);
+    }
+
+    @Benchmark
+    public List<UserDTO> searchByBirthDateRange() {
+        return userService.searchByBirthDateRange(from, to);
+    }
+}
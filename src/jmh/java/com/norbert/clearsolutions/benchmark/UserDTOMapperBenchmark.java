@@ -0,0 +1,39 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.mapper.UserDTOMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UserDTOMapperBenchmark {
+    private final UserDTOMapper mapper = new UserDTOMapper();
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkUsers.user(1, LocalDate.of(1990, 1, 1));
+    }
+
+    @Benchmark
+    public UserDTO apply() {
+        return mapper.apply(user);
+    }
+}
@@ -0,0 +1,88 @@
+package com.norbert.clearsolutions.benchmark;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean validation of the request DTOs, dominated by the email and phone regular expressions.
+ * The invalid cases also pay for message interpolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UserValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserDTO validUser;
+    private UserDTO invalidUser;
+    private UserUpdateDTO validUpdate;
+    private UserUpdateDTO invalidUpdate;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validUser = BenchmarkUsers.userDTO(1);
+        invalidUser = BenchmarkUsers.userDTO(2);
+        invalidUser.setEmail("not-an-email");
+        invalidUser.setPhone("0501234567");
+        validUpdate = UserUpdateDTO.builder()
+                .id(1L)
+                .email("updated.email@example.com")
+                .phone("+380987654321")
+                .birthDate(LocalDate.of(1988, 5, 15))
+                .build();
+        invalidUpdate = UserUpdateDTO.builder()
+                .id(1L)
+                .email("updated.email@example")
+                .phone("+38098765432")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDTO>> validUserDTO() {
+        return validator.validate(validUser);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDTO>> invalidUserDTO() {
+        return validator.validate(invalidUser);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserUpdateDTO>> validUserUpdateDTO() {
+        return validator.validate(validUpdate);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserUpdateDTO>> invalidUserUpdateDTO() {
+        return validator.validate(invalidUpdate);
+    }
+}
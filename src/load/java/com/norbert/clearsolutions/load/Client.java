@@ -0,0 +1,70 @@
+package com.norbert.clearsolutions.load;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Per-client request state. Every client draws from its own seeded random, so the sequence of
+ * requests is the same on every run.
+ */
+final class Client {
+    private final int index;
+    private final LoadBenchmarkOptions options;
+    private final SplittableRandom random;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private long nextDeletableId;
+    private long created;
+
+    Client(int index, LoadBenchmarkOptions options) {
+        this.index = index;
+        this.options = options;
+        this.random = new SplittableRandom(options.seed() * 31 + index);
+        this.operations = options.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<Operation, Integer> entry : options.mix().entrySet()) {
+            total += entry.getValue();
+            cumulativeWeights[i++] = total;
+        }
+        this.nextDeletableId = options.users() - index;
+    }
+
+    Operation nextOperation() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    long existingId() {
+        return 1 + random.nextInt(Math.max(options.users() / 2, 1));
+    }
+
+    long nextDeletableId() {
+        long id = nextDeletableId;
+        nextDeletableId -= options.clients();
+        return id;
+    }
+
+    LocalDate birthDate() {
+        return SyntheticUsers.birthDate(random);
+    }
+
+    int searchDays() {
+        return options.searchDays();
+    }
+
+    String newEmail() {
+        return "load-" + index + "-" + created++ + "@example.com";
+    }
+
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+}
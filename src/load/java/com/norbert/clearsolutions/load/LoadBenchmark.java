@@ -0,0 +1,155 @@
+package com.norbert.clearsolutions.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.norbert.clearsolutions.ClearSolutionsTestTaskApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-to-end load benchmark: starts Postgres (embedded unless {@code load.jdbc-url} is set),
+ * applies the Flyway schema, seeds {@code load.users} synthetic users, starts the application and
+ * drives a weighted mix of requests from {@code load.clients} closed-loop clients. Latencies are
+ * recorded after the warmup and reported per endpoint on stdout and as JSON in
+ * {@code load.result-file}. Being closed-loop, the percentiles do not include time a request would
+ * have waited to be sent while its client was blocked. Program arguments are passed on to the
+ * application, e.g. {@code --spring.threads.virtual.enabled=true}.
+ */
+@Slf4j
+public final class LoadBenchmark {
+
+    private LoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadBenchmarkOptions options = LoadBenchmarkOptions.fromSystemProperties();
+        EmbeddedPostgres embedded = null;
+        try {
+            String jdbcUrl = options.jdbcUrl();
+            if (jdbcUrl == null) {
+                embedded = EmbeddedPostgres.builder()
+                        .setServerConfig("max_connections", "200")
+                        .setServerConfig("shared_buffers", "512MB")
+                        .start();
+                jdbcUrl = embedded.getJdbcUrl(options.username(), "postgres");
+            }
+            prepareDatabase(jdbcUrl, options);
+            try (ConfigurableApplicationContext application = startApplication(jdbcUrl, options, args)) {
+                int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                List<EndpointStats.Summary> summaries = drive("http://localhost:" + port + "/api/v1/clearsolutions/user", options);
+                report(summaries, options);
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static void prepareDatabase(String jdbcUrl, LoadBenchmarkOptions options) throws Exception {
+        Flyway.configure().dataSource(jdbcUrl, options.username(), options.password()).load().migrate();
+        long started = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, options.username(), options.password())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE users");
+            }
+            SyntheticUsers.seed(connection, options.users(), options.seed());
+        }
+        log.info("Seeded {} users in {} ms", options.users(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private static ConfigurableApplicationContext startApplication(String jdbcUrl, LoadBenchmarkOptions options, String[] args) {
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true",
+                "--spring.datasource.username=" + options.username(),
+                "--spring.datasource.password=" + options.password()));
+        applicationArgs.addAll(List.of(args));
+        return new SpringApplicationBuilder(ClearSolutionsTestTaskApplication.class)
+                .run(applicationArgs.toArray(String[]::new));
+    }
+
+    private static List<EndpointStats.Summary> drive(String baseUrl, LoadBenchmarkOptions options) throws Exception {
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        options.mix().keySet().forEach(operation -> stats.put(operation, new EndpointStats()));
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).build();
+
+        long started = System.nanoTime();
+        long measureFrom = started + options.warmup().toNanos();
+        long stopAt = measureFrom + options.duration().toNanos();
+        log.info("Driving {} clients: {} warmup, {} measured, mix {}", options.clients(), options.warmup(), options.duration(), options.mix());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int index = 0; index < options.clients(); index++) {
+                Client client = new Client(index, options);
+                clients.add(executor.submit(() -> {
+                    while (System.nanoTime() < stopAt) {
+                        Operation operation = client.nextOperation();
+                        HttpRequest request = operation.request(baseUrl, client);
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = 0;
+                        }
+                        if (sent >= measureFrom) {
+                            stats.get(operation).record(System.nanoTime() - sent, status);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        }
+
+        double measuredSeconds = options.duration().toNanos() / 1e9;
+        List<EndpointStats.Summary> summaries = new ArrayList<>();
+        stats.forEach((operation, endpointStats) -> summaries.add(endpointStats.summarize(operation.endpoint(), measuredSeconds)));
+        return summaries;
+    }
+
+    private record Result(LoadBenchmarkOptions options, List<EndpointStats.Summary> endpoints) {
+    }
+
+    private static void report(List<EndpointStats.Summary> summaries, LoadBenchmarkOptions options) throws Exception {
+        System.out.printf("%n%-30s %10s %10s %10s %10s %10s %10s  %s%n",
+                "Endpoint", "Requests", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "Statuses");
+        for (EndpointStats.Summary summary : summaries) {
+            System.out.printf("%-30s %10d %10.1f %10.2f %10.2f %10.2f %10.2f  %s%n",
+                    summary.endpoint(), summary.requests(), summary.throughput(), summary.p50Millis(),
+                    summary.p99Millis(), summary.p999Millis(), summary.maxMillis(), summary.statuses());
+        }
+        File resultFile = new File(options.resultFile());
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(resultFile, new Result(options, summaries));
+        log.info("Wrote {}", resultFile.getAbsolutePath());
+    }
+}
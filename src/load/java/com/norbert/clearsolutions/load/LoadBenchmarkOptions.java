@@ -0,0 +1,53 @@
+package com.norbert.clearsolutions.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Harness settings, read from {@code load.*} system properties.
+ *
+ * @param jdbcUrl database to run against; when absent an embedded Postgres is started. An
+ *                external database has its users table truncated before seeding.
+ */
+record LoadBenchmarkOptions(int users,
+                            long seed,
+                            int clients,
+                            Duration warmup,
+                            Duration duration,
+                            int searchDays,
+                            Map<Operation, Integer> mix,
+                            String jdbcUrl,
+                            String username,
+                            String password,
+                            String resultFile) {
+
+    static LoadBenchmarkOptions fromSystemProperties() {
+        return new LoadBenchmarkOptions(
+                Integer.getInteger("load.users", 1_000_000),
+                Long.getLong("load.seed", 42),
+                Integer.getInteger("load.clients", 64),
+                DurationStyle.detectAndParse(System.getProperty("load.warmup", "30s")),
+                DurationStyle.detectAndParse(System.getProperty("load.duration", "2m")),
+                Integer.getInteger("load.search-days", 7),
+                parseMix(System.getProperty("load.mix", "get=40,search=20,create=15,update=15,delete=10")),
+                System.getProperty("load.jdbc-url"),
+                System.getProperty("load.username", "postgres"),
+                System.getProperty("load.password", "postgres"),
+                System.getProperty("load.result-file", "target/load-result.json"));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
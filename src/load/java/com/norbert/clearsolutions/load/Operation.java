@@ -0,0 +1,73 @@
+package com.norbert.clearsolutions.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+
+/**
+ * The request types the harness sends to UserController. Ids are picked so that clients never
+ * contend on the same row: reads and updates use the lower half of the seeded ids, and each
+ * client deletes its own descending slice of the upper half.
+ */
+enum Operation {
+    GET("GET /{userId}") {
+        @Override
+        HttpRequest request(String baseUrl, Client client) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + client.existingId())).GET().build();
+        }
+    },
+    SEARCH("GET /searchByBirthDateRange") {
+        @Override
+        HttpRequest request(String baseUrl, Client client) {
+            LocalDate from = client.birthDate();
+            LocalDate to = from.plusDays(client.searchDays() - 1);
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/searchByBirthDateRange?from=" + from + "&to=" + to))
+                    .GET()
+                    .build();
+        }
+    },
+    CREATE("POST") {
+        @Override
+        HttpRequest request(String baseUrl, Client client) {
+            String body = """
+                    {"email":"%s","firstName":"Load","lastName":"Test","birthDate":"%s","address":"1 Load St"}\
+                    """.formatted(client.newEmail(), client.birthDate());
+            return json(URI.create(baseUrl))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    },
+    UPDATE("PATCH") {
+        @Override
+        HttpRequest request(String baseUrl, Client client) {
+            String body = """
+                    {"id":%d,"address":"%d Updated St"}\
+                    """.formatted(client.existingId(), client.nextInt(10_000));
+            return json(URI.create(baseUrl))
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    },
+    DELETE("DELETE /{userId}") {
+        @Override
+        HttpRequest request(String baseUrl, Client client) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + client.nextDeletableId())).DELETE().build();
+        }
+    };
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    abstract HttpRequest request(String baseUrl, Client client);
+
+    private static HttpRequest.Builder json(URI uri) {
+        return HttpRequest.newBuilder(uri).header("Content-Type", "application/json");
+    }
+}
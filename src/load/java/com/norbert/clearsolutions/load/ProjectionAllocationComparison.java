@@ -0,0 +1,111 @@
+package com.norbert.clearsolutions.load;
+
+import com.norbert.clearsolutions.ClearSolutionsTestTaskApplication;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.mapper.UserDTOMapper;
+import com.norbert.clearsolutions.repository.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Bytes allocated per returned row by the birth-date search, loading managed {@link User}
+ * entities and mapping them (the former path) versus projecting rows into {@link UserDTO} in a
+ * read-only transaction. Measured with the JVM's per-thread allocation counter after a warmup,
+ * on a database seeded like {@link LoadBenchmark}; driver and Hibernate query overhead is included
+ * in both numbers.
+ */
+public final class ProjectionAllocationComparison {
+    private static final int WARMUP_ITERATIONS = 30;
+    private static final int MEASURED_ITERATIONS = 30;
+
+    private ProjectionAllocationComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadBenchmarkOptions options = LoadBenchmarkOptions.fromSystemProperties();
+        EmbeddedPostgres embedded = null;
+        try {
+            String jdbcUrl = options.jdbcUrl();
+            if (jdbcUrl == null) {
+                embedded = EmbeddedPostgres.builder().start();
+                jdbcUrl = embedded.getJdbcUrl(options.username(), "postgres");
+            }
+            Flyway.configure().dataSource(jdbcUrl, options.username(), options.password()).load().migrate();
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, options.username(), options.password())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("TRUNCATE users");
+                }
+                SyntheticUsers.seed(connection, options.users(), options.seed());
+            }
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ClearSolutionsTestTaskApplication.class)
+                    .run("--server.port=0",
+                            "--spring.datasource.url=" + jdbcUrl,
+                            "--spring.datasource.username=" + options.username(),
+                            "--spring.datasource.password=" + options.password())) {
+                compare(context, options);
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static void compare(ConfigurableApplicationContext context, LoadBenchmarkOptions options) {
+        EntityManager entityManager = context.getBean(EntityManager.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        UserDTOMapper userDTOMapper = context.getBean(UserDTOMapper.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        LocalDate from = LocalDate.of(1975, 1, 1);
+        LocalDate to = from.plusDays(options.searchDays() - 1);
+
+        Supplier<List<UserDTO>> entities = () -> readWrite.execute(status -> entityManager
+                .createQuery("select u from User u where u.birthDate between :from and :to", User.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList()
+                .stream()
+                .map(userDTOMapper)
+                .toList());
+        Supplier<List<UserDTO>> projection = () -> readOnly.execute(status ->
+                userRepository.findUserDTOsByBirthDateBetween(from, to));
+
+        double entityBytes = bytesPerRow(entities);
+        double projectionBytes = bytesPerRow(projection);
+        System.out.printf("%nRows per query: %d%n", projection.get().size());
+        System.out.printf("Managed entities + mapper:     %,10.0f bytes/row%n", entityBytes);
+        System.out.printf("DTO projection, read-only tx:  %,10.0f bytes/row (%.0f%%)%n",
+                projectionBytes, 100 * projectionBytes / entityBytes);
+    }
+
+    private static double bytesPerRow(Supplier<List<UserDTO>> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+        long rows = 0;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            rows += query.get().size();
+        }
+        return (double) (threads.getCurrentThreadAllocatedBytes() - before) / rows;
+    }
+}
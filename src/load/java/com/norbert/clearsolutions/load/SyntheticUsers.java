@@ -0,0 +1,63 @@
+package com.norbert.clearsolutions.load;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic user generator. User {@code n} always has id {@code n}, email
+ * {@code user<n>@example.com} and phone {@code +380<n>}; names, birth dates and addresses come
+ * from a random seeded with {@code load.seed}. Rows are loaded with COPY.
+ */
+final class SyntheticUsers {
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    private static final int BIRTH_DATE_SPAN_DAYS = 55 * 365;
+    private static final String[] FIRST_NAMES = {"Olena", "Taras", "Iryna", "Andrii", "Mariia", "Dmytro", "Sofiia", "Oleh"};
+    private static final String[] LAST_NAMES = {"Shevchenko", "Kovalenko", "Bondarenko", "Tkachenko", "Kravchenko", "Melnyk"};
+    private static final String[] STREETS = {"Main", "Khreshchatyk", "Shevchenka", "Franka", "Lesi Ukrainky"};
+    private static final int ROWS_PER_CHUNK = 10_000;
+
+    private SyntheticUsers() {
+    }
+
+    static LocalDate birthDate(SplittableRandom random) {
+        return FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_SPAN_DAYS));
+    }
+
+    static void seed(Connection connection, int count, long seed) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                "COPY users (id, email, first_name, last_name, birth_date, address, phone, version) FROM STDIN WITH (FORMAT csv)");
+        try {
+            StringBuilder chunk = new StringBuilder(ROWS_PER_CHUNK * 120);
+            for (int n = 1; n <= count; n++) {
+                chunk.append(n).append(",user").append(n).append("@example.com,")
+                        .append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(',')
+                        .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]).append(',')
+                        .append(birthDate(random)).append(',')
+                        .append(1 + random.nextInt(200)).append(' ').append(STREETS[random.nextInt(STREETS.length)]).append(" St,")
+                        .append(String.format("+380%09d", n)).append(",0\n");
+                if (n % ROWS_PER_CHUNK == 0 || n == count) {
+                    byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+                    copy.writeToCopy(bytes, 0, bytes.length);
+                    chunk.setLength(0);
+                }
+            }
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval('users_id_seq', " + Math.max(count, 1) + ")");
+            statement.execute("ANALYZE users");
+        }
+    }
+}
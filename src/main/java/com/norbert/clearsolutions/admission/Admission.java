@@ -0,0 +1,18 @@
+package com.norbert.clearsolutions.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Priority of a controller operation for {@link AdmissionControl}. Operations without it are
+ * {@link AdmissionPriority#NORMAL}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+    AdmissionPriority value();
+}
@@ -0,0 +1,142 @@
+package com.norbert.clearsolutions.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limits in front of the user endpoints. Every operation has its own {@link AimdLimit},
+ * and all operations share one more that follows the database as a whole. The shared limit adapts
+ * to whether each request was slow for its own operation, since a search that is slow compared
+ * with a create says nothing about congestion. A request is admitted
+ * when its operation's limit has room and the requests in flight stay within its priority's
+ * {@linkplain AdmissionPriority#getShare() share} of the shared limit. Rejected requests never
+ * reach the connection pool, so they fail in microseconds instead of waiting for a connection
+ * timeout and adding to the queue that slows down everyone else.
+ */
+@Profile("!reactive")
+@Component
+@ConditionalOnProperty(name = "admission-control.enabled", havingValue = "true")
+public class AdmissionControl implements MeterBinder {
+    private static final String ALL_OPERATIONS = "all";
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AimdLimit shared;
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public AdmissionControl(@Value("${admission-control.initial-limit}") int initialLimit,
+                            @Value("${admission-control.min-limit}") int minLimit,
+                            @Value("${admission-control.max-limit}") int maxLimit) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.shared = new AimdLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * @return a permit to release once the request completes, or empty if it must be rejected
+     */
+    public Optional<Permit> tryAcquire(String operationName, AdmissionPriority priority) {
+        Operation operation = operations.computeIfAbsent(operationName, name -> register(new Operation(name, priority)));
+        if (!operation.limit.tryAcquire(1.0)) {
+            operation.rejected.increment();
+            return Optional.empty();
+        }
+        if (!shared.tryAcquire(operation.priority.getShare())) {
+            operation.limit.release();
+            operation.rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(new Permit(operation, System.nanoTime(), operation.limit.inflight(), shared.inflight()));
+    }
+
+    public int limit(String operationName) {
+        Operation operation = operations.get(operationName);
+        return operation != null ? operation.limit.limit() : initialLimit;
+    }
+
+    public int sharedLimit() {
+        return shared.limit();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindLimit(registry, ALL_OPERATIONS, shared);
+        this.registry = registry;
+        operations.values().forEach(this::register);
+    }
+
+    private Operation register(Operation operation) {
+        MeterRegistry meters = registry;
+        if (meters != null) {
+            bindLimit(meters, operation.name, operation.limit);
+            FunctionCounter.builder("admission.rejected", operation.rejected, LongAdder::sum)
+                    .description("Requests rejected by admission control")
+                    .tag("operation", operation.name)
+                    .tag("priority", operation.priority.name())
+                    .register(meters);
+        }
+        return operation;
+    }
+
+    private static void bindLimit(MeterRegistry registry, String operation, AimdLimit limit) {
+        Gauge.builder("admission.limit", limit, AimdLimit::limit)
+                .description("Adaptive concurrency limit")
+                .tag("operation", operation)
+                .register(registry);
+        Gauge.builder("admission.inflight", limit, AimdLimit::inflight)
+                .description("Admitted requests in flight")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private final class Operation {
+        private final String name;
+        private final AdmissionPriority priority;
+        private final AimdLimit limit = new AimdLimit(initialLimit, minLimit, maxLimit);
+        private final LongAdder rejected = new LongAdder();
+
+        private Operation(String name, AdmissionPriority priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+    }
+
+    public final class Permit {
+        private final Operation operation;
+        private final long startNanos;
+        private final int inflight;
+        private final int sharedInflight;
+
+        private Permit(Operation operation, long startNanos, int inflight, int sharedInflight) {
+            this.operation = operation;
+            this.startNanos = startNanos;
+            this.inflight = inflight;
+            this.sharedInflight = sharedInflight;
+        }
+
+        /**
+         * @param dropped whether the request failed for lack of capacity
+         */
+        public void release(boolean dropped) {
+            long latencyNanos = System.nanoTime() - startNanos;
+            operation.limit.release();
+            shared.release();
+            boolean congested = operation.limit.onSample(latencyNanos, inflight, dropped);
+            shared.adapt(congested, sharedInflight);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.norbert.clearsolutions.admission;
+
+import com.norbert.clearsolutions.exception.ServiceUnavailableException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Asks {@link AdmissionControl} for a permit before a controller method runs and returns it with
+ * the request's latency afterwards. The operation is the method name and its priority comes from
+ * {@link Admission}. An admitted request answered with 503, because the database was busy or
+ * unavailable, counts as dropped.
+ */
+@RequiredArgsConstructor
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final AdmissionControl admissionControl;
+    private final Duration retryAfter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Admission admission = method.getMethodAnnotation(Admission.class);
+        AdmissionPriority priority = admission != null ? admission.value() : AdmissionPriority.NORMAL;
+        AdmissionControl.Permit permit = admissionControl.tryAcquire(method.getMethod().getName(), priority)
+                .orElseThrow(() -> new ServiceUnavailableException("The server is overloaded. Retry later.", retryAfter));
+        request.setAttribute(PERMIT, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof AdmissionControl.Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.release(response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+    }
+}
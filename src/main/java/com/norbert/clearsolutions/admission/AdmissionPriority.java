@@ -0,0 +1,19 @@
+package com.norbert.clearsolutions.admission;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Order in which operations are shed under load. An operation is admitted only while the requests
+ * in flight across all operations stay below its share of the shared limit, so as the database
+ * slows down sheddable operations are rejected first and critical ones last.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AdmissionPriority {
+    CRITICAL(1.0),
+    NORMAL(0.8),
+    SHEDDABLE(0.5);
+
+    private final double share;
+}
@@ -0,0 +1,97 @@
+package com.norbert.clearsolutions.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adapted to latency by additive increase and multiplicative decrease. The usual
+ * latency is a moving average of the samples that follows faster samples quickly and slower ones
+ * slowly, so it stays close to the latency without queueing. A request that took more than
+ * {@value #TOLERANCE} times that, or failed for lack of capacity, shrinks the limit by a tenth;
+ * any other request that found the limit at least half used raises it by one. A lasting slowdown
+ * of the database still becomes the new usual latency within a few thousand samples.
+ */
+public class AimdLimit {
+    private static final double TOLERANCE = 2.0;
+    private static final double BACKOFF = 0.9;
+    private static final double SMOOTHING_UP = 0.001;
+    private static final double SMOOTHING_DOWN = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private double averageLatencyNanos;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Takes a slot if fewer than {@code share} of the limit are in flight.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * Adapts the limit to a request that took {@code latencyNanos} and started with
+     * {@code inflightAtStart} requests in flight, itself included.
+     *
+     * @return whether the request saw congestion
+     */
+    public synchronized boolean onSample(long latencyNanos, int inflightAtStart, boolean dropped) {
+        boolean congested = dropped || (averageLatencyNanos > 0 && latencyNanos > TOLERANCE * averageLatencyNanos);
+        if (averageLatencyNanos == 0) {
+            averageLatencyNanos = latencyNanos;
+        } else {
+            double smoothing = latencyNanos < averageLatencyNanos ? SMOOTHING_DOWN : SMOOTHING_UP;
+            averageLatencyNanos += smoothing * (latencyNanos - averageLatencyNanos);
+        }
+        adapt(congested, inflightAtStart);
+        return congested;
+    }
+
+    /**
+     * Adapts the limit to congestion detected elsewhere, which lets one limit follow operations
+     * whose latencies differ by orders of magnitude.
+     */
+    public synchronized void adapt(boolean congested, int inflightAtStart) {
+        double current = limit;
+        double next;
+        if (congested) {
+            next = current * BACKOFF;
+        } else if (inflightAtStart * 2 >= current) {
+            next = current + 1;
+        } else {
+            // Far below the limit: a fast request says nothing about whether the limit is too low
+            return;
+        }
+        limit = Math.clamp(next, minLimit, maxLimit);
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,89 @@
+package com.norbert.clearsolutions.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.transaction.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of users by id, evicted by size and time since the last load.
+ */
+@Component
+public class UserCache implements MeterBinder {
+    private final AsyncCache<Long, UserDTO> cache;
+
+    public UserCache(@Value("${cache.user.maximum-size}") long maximumSize,
+                     @Value("${cache.user.expire-after-write}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Only a placeholder future is installed under the map's lock; the loader runs afterwards on
+     * the calling thread, so a virtual thread never blocks on the database while pinned to its
+     * carrier. Concurrent readers of the same id wait for that one load.
+     * <p>
+     * A failed load, such as a missing user, completes the placeholder with null rather than
+     * exceptionally, which Caffeine would log as a warning on every miss. The entry is dropped,
+     * the loading reader gets the exception and readers that waited for it load again themselves.
+     */
+    public UserDTO get(Long id, Function<Long, UserDTO> loader) {
+        while (true) {
+            CompletableFuture<UserDTO> pending = new CompletableFuture<>();
+            CompletableFuture<UserDTO> future = cache.get(id, (key, executor) -> pending);
+            if (future == pending) {
+                try {
+                    UserDTO user = loader.apply(id);
+                    pending.complete(user);
+                    return user;
+                } catch (RuntimeException | Error e) {
+                    pending.complete(null);
+                    throw e;
+                }
+            }
+            UserDTO user = future.join();
+            if (user != null) {
+                return user;
+            }
+        }
+    }
+
+    /**
+     * Evicts the user now and, when called inside a transaction, again after commit, so a
+     * concurrent read cannot re-cache the row as it was before the write became visible.
+     */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            AfterCommit.run(() -> cache.synchronous().invalidate(id));
+        }
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+}
@@ -0,0 +1,48 @@
+package com.norbert.clearsolutions.cache;
+
+import com.norbert.clearsolutions.transaction.AfterCommit;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the users table used as the ETag of search results. Every write made through
+ * {@code UserServiceImpl} bumps it once its transaction commits, so a version read before a query
+ * is never newer than the data the query returns. Each start picks a random epoch, so versions
+ * handed out before a restart or by another instance never match. Writes made directly in the
+ * database or by another instance are not seen by this counter.
+ */
+@Profile("!reactive")
+@Component
+public class UserTableVersion {
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong version = new AtomicLong();
+    // Start counts as a change: writes made before it may not have reached the replicas yet
+    private volatile long changedAtNanos = System.nanoTime();
+
+    public String current() {
+        return epoch + "-" + version.get();
+    }
+
+    /**
+     * @return whether the version changed less than {@code period} ago
+     */
+    public boolean changedWithin(Duration period) {
+        return System.nanoTime() - changedAtNanos < period.toNanos();
+    }
+
+    /**
+     * Bumps the version once the current write is committed.
+     */
+    public void bump() {
+        AfterCommit.run(this::increment);
+    }
+
+    private void increment() {
+        version.incrementAndGet();
+        changedAtNanos = System.nanoTime();
+    }
+}
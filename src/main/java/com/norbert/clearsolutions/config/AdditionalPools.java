@@ -0,0 +1,66 @@
+package com.norbert.clearsolutions.config;
+
+import com.norbert.clearsolutions.datasource.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection pools for databases next to the primary one, such as replicas or shards. They copy
+ * the primary pool's settings and credentials, and get the same connection guard as the primary
+ * pool when virtual threads are enabled.
+ */
+final class AdditionalPools implements AutoCloseable {
+    private final Environment environment;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    AdditionalPools(Environment environment) {
+        this.environment = environment;
+    }
+
+    DataSource create(HikariDataSource primaryPool, String url, String poolName) {
+        HikariConfig config = new HikariConfig();
+        primaryPool.copyStateTo(config);
+        config.setJdbcUrl(url);
+        config.setPoolName(poolName);
+        HikariDataSource pool = new HikariDataSource(config);
+        pools.add(pool);
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            int maxWaiting = environment.getRequiredProperty("datasource.guard.max-waiting", Integer.class);
+            return new ConnectionLimitingDataSource(pool, pool.getMaximumPoolSize(), maxWaiting,
+                    Duration.ofMillis(pool.getConnectionTimeout()));
+        }
+        return pool;
+    }
+
+    boolean isEmpty() {
+        return pools.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    static boolean isHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read the primary pool settings", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.norbert.clearsolutions.config;
+
+import com.norbert.clearsolutions.admission.AdmissionControl;
+import com.norbert.clearsolutions.admission.AdmissionControlInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Active when {@code admission-control.enabled=true}. Puts {@link AdmissionControl} in front of
+ * the user endpoints.
+ */
+@Profile("!reactive")
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "admission-control.enabled", havingValue = "true")
+public class AdmissionControlConfig implements WebMvcConfigurer {
+    private final AdmissionControl admissionControl;
+    private final Duration retryAfter;
+
+    public AdmissionControlConfig(AdmissionControl admissionControl,
+                                  @Value("${admission-control.retry-after}") Duration retryAfter) {
+        this.admissionControl = admissionControl;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionControlInterceptor(admissionControl, retryAfter))
+                .addPathPatterns("/api/v1/clearsolutions/user/**");
+    }
+}
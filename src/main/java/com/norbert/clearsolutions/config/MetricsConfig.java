@@ -0,0 +1,76 @@
+package com.norbert.clearsolutions.config;
+
+import com.norbert.clearsolutions.metrics.SqlAccountingFilter;
+import com.norbert.clearsolutions.metrics.SqlStatementRecorder;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Service timers ({@code @Timed}) and per-request SQL statement accounting. Repository calls are
+ * timed by Spring Boot as {@code spring.data.repository.invocations}.
+ */
+@Profile("!reactive")
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public static SqlStatementRecorder sqlStatementRecorder() {
+        return new SqlStatementRecorder();
+    }
+
+    @Bean
+    static BeanPostProcessor sqlAccountingDataSourcePostProcessor(ObjectProvider<SqlStatementRecorder> recorder) {
+        return new SqlAccountingPostProcessor(recorder);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlAccountingFilter> sqlAccountingFilter(
+            SqlStatementRecorder recorder, MeterRegistry meterRegistry,
+            @Value("${sql-accounting.statement-budget}") int statementBudget,
+            @Value("${sql-accounting.response-headers}") boolean responseHeaders) {
+        FilterRegistrationBean<SqlAccountingFilter> registration = new FilterRegistrationBean<>(
+                new SqlAccountingFilter(recorder, meterRegistry, statementBudget, responseHeaders));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Runs last so that the statement-counting proxy is the outermost wrapper of the data source.
+     */
+    private record SqlAccountingPostProcessor(ObjectProvider<SqlStatementRecorder> recorder)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(recorder.getObject())
+                        .build();
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.norbert.clearsolutions.config;
+
+import com.norbert.clearsolutions.datasource.ReadYourWritesFilter;
+import com.norbert.clearsolutions.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Active when {@code datasource.replicas.urls} lists at least one JDBC URL. The primary pool is
+ * wrapped in a {@link LazyConnectionDataSourceProxy}, which defers fetching a connection until the
+ * first statement: by then a read-only transaction has marked it read-only and it is taken from a
+ * replica through {@link ReplicaRoutingDataSource}; everything else uses the primary. Replica pools
+ * copy the primary pool's settings and credentials.
+ */
+@Profile("!reactive")
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.isBlank()")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    static ReplicaRoutingPostProcessor replicaRoutingDataSourcePostProcessor(Environment environment) {
+        return new ReplicaRoutingPostProcessor(environment);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${datasource.replicas.read-your-writes-window}") Duration window) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(new ReadYourWritesFilter(window));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    /**
+     * Runs right after {@link VirtualThreadConfig}'s post-processor, so that replica pools get the
+     * same connection guard as the primary, and before the statement-counting proxy, so that
+     * statements sent to replicas are counted too.
+     */
+    @Slf4j
+    static final class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+        private final Environment environment;
+        private final AdditionalPools replicaPools;
+
+        private ReplicaRoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+            this.replicaPools = new AdditionalPools(environment);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource primary && AdditionalPools.isHikari(primary) && replicaPools.isEmpty()) {
+                HikariDataSource primaryPool = AdditionalPools.unwrapHikari(primary);
+                List<DataSource> replicas = new ArrayList<>();
+                for (String url : StringUtils.commaDelimitedListToStringArray(environment.getRequiredProperty("datasource.replicas.urls"))) {
+                    replicas.add(replicaPools.create(primaryPool, url.trim(), "replica-" + (replicas.size() + 1)));
+                }
+                LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+                routing.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicas));
+                log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+                return routing;
+            }
+            return bean;
+        }
+
+        @Override
+        public void destroy() {
+            replicaPools.close();
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
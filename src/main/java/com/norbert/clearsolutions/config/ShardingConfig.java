@@ -0,0 +1,138 @@
+package com.norbert.clearsolutions.config;
+
+import com.norbert.clearsolutions.datasource.ShardRoutingDataSource;
+import com.norbert.clearsolutions.datasource.Shards;
+import com.norbert.clearsolutions.metrics.SqlStatementRecorder;
+import com.norbert.clearsolutions.repository.GlobalUserKeys;
+import com.norbert.clearsolutions.repository.ShardedUserRepository;
+import com.norbert.clearsolutions.repository.UserRepository;
+import com.norbert.clearsolutions.repository.UserStore;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Active when {@code datasource.shards.urls} lists at least one JDBC URL. The primary database
+ * becomes shard 0 and each URL one more shard; shards are migrated by Flyway at startup.
+ * The service and indexes get a {@link ShardedUserRepository} in place of {@link UserRepository},
+ * which routes calls by the user's id, and the primary also keeps the global id sequence and email
+ * and phone lookup tables.
+ * <p>
+ * The data source hands out connections lazily, once the first statement picks the shard, so a
+ * service-level transaction that only calls the routed repository holds no connection itself.
+ * Import, write coalescing and read replicas work on a single users table and cannot be combined
+ * with shards.
+ */
+@Profile("!reactive")
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("!'${datasource.shards.urls:}'.isBlank()")
+public class ShardingConfig {
+
+    @Bean
+    static ShardRoutingPostProcessor shardRoutingDataSourcePostProcessor(Environment environment) {
+        return new ShardRoutingPostProcessor(environment);
+    }
+
+    // Shard queries run on other threads; the recorder counts their statements for the request
+    @Bean
+    public Shards userShards(PlatformTransactionManager transactionManager, SqlStatementRecorder sqlStatementRecorder,
+                             Environment environment) {
+        if (environment.getProperty("user-create.coalescing.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("user-create.coalescing cannot be enabled together with datasource.shards");
+        }
+        if (StringUtils.hasText(environment.getProperty("datasource.replicas.urls"))) {
+            throw new IllegalStateException("datasource.replicas cannot be set together with datasource.shards");
+        }
+        return new Shards(1 + shardUrls(environment).length, transactionManager, sqlStatementRecorder);
+    }
+
+    // Users already on the primary would be looked up on the shard of their id and not found
+    @Bean
+    public GlobalUserKeys globalUserKeys(Shards shards, JdbcTemplate jdbcTemplate) {
+        GlobalUserKeys globalUserKeys = new GlobalUserKeys(shards, jdbcTemplate);
+        if (globalUserKeys.hasUnclaimedUsers()) {
+            throw new IllegalStateException("datasource.shards cannot be set while the primary holds users created without it");
+        }
+        return globalUserKeys;
+    }
+
+    @Bean
+    @Primary
+    public UserStore shardedUserRepository(UserRepository userRepository, Shards shards,
+                                           GlobalUserKeys globalUserKeys, JdbcTemplate jdbcTemplate) {
+        return new ShardedUserRepository(userRepository, shards, globalUserKeys, jdbcTemplate);
+    }
+
+    private static String[] shardUrls(Environment environment) {
+        return StringUtils.commaDelimitedListToStringArray(environment.getRequiredProperty("datasource.shards.urls"));
+    }
+
+    /**
+     * Runs right after {@link VirtualThreadConfig}'s post-processor, so that shard pools get the
+     * same connection guard as the primary, and before the statement-counting proxy, so that
+     * statements sent to every shard are counted.
+     */
+    @Slf4j
+    static final class ShardRoutingPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+        private final Environment environment;
+        private final AdditionalPools shardPools;
+
+        private ShardRoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+            this.shardPools = new AdditionalPools(environment);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource primary && AdditionalPools.isHikari(primary) && shardPools.isEmpty()) {
+                HikariDataSource primaryPool = AdditionalPools.unwrapHikari(primary);
+                List<DataSource> shards = new ArrayList<>();
+                shards.add(primary);
+                for (String url : shardUrls(environment)) {
+                    DataSource shard = shardPools.create(primaryPool, url.trim(), "shard-" + shards.size());
+                    migrate(shard);
+                    shards.add(shard);
+                }
+                log.info("Sharding users across {} databases", shards.size());
+                return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+            }
+            return bean;
+        }
+
+        // The primary is migrated by Spring Boot's Flyway integration
+        private void migrate(DataSource shard) {
+            Flyway.configure()
+                    .dataSource(shard)
+                    .locations(environment.getProperty("spring.flyway.locations", String[].class, new String[]{"classpath:db/migration"}))
+                    .load()
+                    .migrate();
+        }
+
+        @Override
+        public void destroy() {
+            shardPools.close();
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.norbert.clearsolutions.config;
+
+import com.norbert.clearsolutions.datasource.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Active when {@code spring.threads.virtual.enabled=true}. Spring Boot then serves Tomcat requests
+ * on virtual threads; this configuration puts the Hikari pool behind a
+ * {@link ConnectionLimitingDataSource} so that the unbounded number of request threads cannot
+ * pile up on the pool.
+ */
+@Profile("!reactive")
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new ConnectionLimitingPostProcessor(environment);
+    }
+
+    /**
+     * Runs first so that it sees the Hikari pool itself rather than a proxy around it.
+     */
+    private record ConnectionLimitingPostProcessor(Environment environment) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                int maxWaiting = environment.getRequiredProperty("datasource.guard.max-waiting", Integer.class);
+                return new ConnectionLimitingDataSource(hikari, hikari.getMaximumPoolSize(), maxWaiting,
+                        Duration.ofMillis(hikari.getConnectionTimeout()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.norbert.clearsolutions.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream for a CSV download, optionally gzip-compressed. The response headers are set
+ * and the servlet stream is opened on the first write, so an error raised before that still
+ * reaches {@link com.norbert.clearsolutions.exception.GlobalExceptionHandler}.
+ */
+class CsvExportOutputStream extends OutputStream {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final HttpServletResponse response;
+    private final String fileName;
+    private final boolean gzip;
+    private OutputStream out;
+
+    CsvExportOutputStream(HttpServletResponse response, String fileName, boolean gzip) {
+        this.response = response;
+        this.fileName = fileName;
+        this.gzip = gzip;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        open().write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        open().write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Completes the download, writing the gzip trailer when compressing.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    private OutputStream open() throws IOException {
+        if (out == null) {
+            response.setContentType(gzip ? "application/gzip" : "text/csv");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(gzip ? fileName + ".gz" : fileName)
+                    .build()
+                    .toString());
+            out = gzip ? new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE) : response.getOutputStream();
+        }
+        return out;
+    }
+}
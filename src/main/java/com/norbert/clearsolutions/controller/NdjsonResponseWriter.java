@@ -0,0 +1,46 @@
+package com.norbert.clearsolutions.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes one JSON document per line straight to the servlet output stream.
+ * The stream is opened on the first row, so an error raised before that still
+ * reaches {@link com.norbert.clearsolutions.exception.GlobalExceptionHandler}.
+ */
+@RequiredArgsConstructor
+class NdjsonResponseWriter implements Consumer<Object>, Closeable {
+    private final ObjectMapper objectMapper;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    @Override
+    public void accept(Object value) {
+        try {
+            if (generator == null) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                generator = objectMapper.createGenerator(response.getOutputStream());
+                generator.setRootValueSeparator(null);
+            }
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+}
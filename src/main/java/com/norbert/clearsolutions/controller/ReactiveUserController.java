@@ -0,0 +1,96 @@
+package com.norbert.clearsolutions.controller;
+
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import com.norbert.clearsolutions.service.api.IReactiveUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Same API as {@link UserController}, served by WebFlux and R2DBC when the reactive profile is active.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/v1/clearsolutions/user")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+    private final IReactiveUserService userService;
+
+    @GetMapping("/{userId}")
+    @Operation(summary = "Get user", description = "Retrieves the user with the specified ID")
+    @ApiResponse(responseCode = "200", description = "User retrieved successfully", content = @Content(schema = @Schema(implementation = UserDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid ID or user not found", content = @Content)
+    public Mono<UserDTO> get(@PathVariable String userId) {
+        return userService.getUser(userId);
+    }
+
+    @PutMapping
+    @Operation(summary = "Update user", description = "Updates the user data for the given ID")
+    @ApiResponse(responseCode = "200", description = "User updated successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid user data provided or user not found", content = @Content)
+    public Mono<ResponseEntity<Void>> update(@Valid @RequestBody UserUpdateDTO userUpdateDTO) {
+        return userService.updateUser(userUpdateDTO)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok().<Void>build()));
+    }
+
+    @PatchMapping
+    @Operation(summary = "Partially update user", description = "Updates only the supplied fields of the user with the given ID. When a version is supplied, the update is rejected if the user was modified since.")
+    @ApiResponse(responseCode = "200", description = "User updated successfully", content = @Content(schema = @Schema(implementation = UserDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid user data provided or user not found", content = @Content)
+    @ApiResponse(responseCode = "409", description = "User was modified concurrently", content = @Content)
+    public Mono<UserDTO> patch(@Valid @RequestBody UserUpdateDTO userUpdateDTO) {
+        return userService.patchUser(userUpdateDTO);
+    }
+
+    @GetMapping(value = "/searchByBirthDateRange", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Search users by birth date range", description = "Retrieves users within the specified birth date range, as a JSON array or as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Users retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid date range provided", content = @Content)
+    public Flux<UserDTO> searchByBirthDateRange(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to) {
+        return userService.searchByBirthDateRange(from, to);
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a new user", description = "Creates a new user with the provided user data")
+    @ApiResponse(responseCode = "201", description = "User created successfully", content = @Content(schema = @Schema(implementation = UserDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid user data provided", content = @Content)
+    public Mono<Map<String, Long>> create(@Valid @RequestBody UserDTO userDTO) {
+        return userService.createUser(userDTO)
+                .map(userId -> Collections.singletonMap("id", userId));
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete users in bulk", description = "Deletes every user with one of the given IDs in a single statement and reports the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Users deleted, see the missing IDs")
+    @ApiResponse(responseCode = "400", description = "No IDs or too many IDs provided", content = @Content)
+    public Mono<UserBulkDeleteResultDTO> deleteBatch(@RequestBody List<Long> userIds) {
+        return userService.deleteUsers(userIds);
+    }
+
+    @DeleteMapping("/{userId}")
+    @Operation(summary = "Delete user", description = "Deletes a user with the specified ID")
+    @ApiResponse(responseCode = "200", description = "User deleted successfully")
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    public Mono<ResponseEntity<Void>> delete(@PathVariable String userId) {
+        return userService.deleteUser(userId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok().<Void>build()));
+    }
+}
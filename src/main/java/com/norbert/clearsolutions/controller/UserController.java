@@ -1,10 +1,26 @@
 package com.norbert.clearsolutions.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.norbert.clearsolutions.admission.Admission;
+import com.norbert.clearsolutions.admission.AdmissionPriority;
+import com.norbert.clearsolutions.dto.BirthDateBucketDTO;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.dto.UserBatchResultDTO;
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
 import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserImportResultDTO;
+import com.norbert.clearsolutions.dto.UserPageDTO;
 import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import com.norbert.clearsolutions.exception.BadRequestException;
 import com.norbert.clearsolutions.service.api.IUserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,17 +28,31 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping("/api/v1/clearsolutions/user")
 @RequiredArgsConstructor
 public class UserController {
     private final IUserService userService;
+    private final ObjectMapper objectMapper;
 
+    @GetMapping("/{userId}")
+    @Operation(summary = "Get user", description = "Retrieves the user with the specified ID")
+    @ApiResponse(responseCode = "200", description = "User retrieved successfully", content = @Content(schema = @Schema(implementation = UserDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid ID or user not found", content = @Content)
+    public ResponseEntity<UserDTO> get(@PathVariable String userId) {
+        UserDTO user = userService.getUser(userId);
+        return ResponseEntity.ok(user);
+    }
+
+    @Admission(AdmissionPriority.CRITICAL)
     @PutMapping
     @Operation(summary = "Update user", description = "Updates the user data for the given ID")
     @ApiResponse(responseCode = "200", description = "User updated successfully")
@@ -33,18 +63,150 @@ public class UserController {
         return ResponseEntity.ok().build();
     }
 
+    @Admission(AdmissionPriority.CRITICAL)
+    @PatchMapping
+    @Operation(summary = "Partially update user", description = "Updates only the supplied fields of the user with the given ID. When a version is supplied, the update is rejected if the user was modified since.")
+    @ApiResponse(responseCode = "200", description = "User updated successfully", content = @Content(schema = @Schema(implementation = UserDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid user data provided or user not found", content = @Content)
+    @ApiResponse(responseCode = "409", description = "User was modified concurrently", content = @Content)
+    public ResponseEntity<UserDTO> patch(@Valid @RequestBody UserUpdateDTO userUpdateDTO) {
+        UserDTO user = userService.patchUser(userUpdateDTO);
+        return ResponseEntity.ok(user);
+    }
+
+    @Admission(AdmissionPriority.SHEDDABLE)
     @GetMapping("/searchByBirthDateRange")
     @Operation(summary = "Search users by birth date range", description = "Retrieves users within the specified birth date range")
     @ApiResponse(responseCode = "200", description = "Users retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "Users did not change since the version in If-None-Match", content = @Content)
     @ApiResponse(responseCode = "400", description = "Invalid date range provided", content = @Content)
     public ResponseEntity<List<UserDTO>> searchByBirthDateRange(
             @RequestParam(name = "from") LocalDate from,
-            @RequestParam(name = "to") LocalDate to) {
+            @RequestParam(name = "to") LocalDate to,
+            HttpServletRequest request) {
 
+        validateBirthDateRange(from, to);
+        String etag = usersETag();
+        if (etag == null) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(userService.searchByBirthDateRange(from, to));
+        }
+        if (isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).eTag(etag).build();
+        }
         List<UserDTO> users = userService.searchByBirthDateRange(from, to);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(etag).body(users);
+    }
+
+    @Admission(AdmissionPriority.SHEDDABLE)
+    @GetMapping(value = "/searchByBirthDateRange", params = "limit")
+    @Operation(summary = "Search users by birth date range, one page at a time",
+            description = "Retrieves up to limit users within the specified birth date range, ordered by birth date and id. Pass the returned next cursor to get the following page.")
+    @ApiResponse(responseCode = "200", description = "Page retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "Users did not change since the version in If-None-Match", content = @Content)
+    @ApiResponse(responseCode = "400", description = "Invalid date range, limit or cursor provided", content = @Content)
+    public ResponseEntity<UserPageDTO> searchByBirthDateRangePage(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to,
+            @RequestParam(name = "limit") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            HttpServletRequest request) {
+
+        validateBirthDateRange(from, to);
+        String etag = usersETag();
+        if (etag == null) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(userService.searchByBirthDateRange(from, to, limit, cursor));
+        }
+        if (isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).eTag(etag).build();
+        }
+        UserPageDTO page = userService.searchByBirthDateRange(from, to, limit, cursor);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(etag).body(page);
+    }
+
+    // Read before the query, so a write committing meanwhile can only make the tag older than the data.
+    // Null while the version may be newer than what a lagging replica returns. The tag is weak because
+    // the JSON, Smile and CBOR bodies of one version share it; Vary: Accept keeps caches apart.
+    private String usersETag() {
+        String version = userService.getUsersVersion();
+        return version != null ? "W/\"" + version + "\"" : null;
+    }
+
+    // The range is checked before If-None-Match, so an invalid request is never answered with a 304
+    private static void validateBirthDateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Invalid range for birth dates.");
+        }
+    }
+
+    // If-None-Match uses the weak comparison. The ETag is only added to successful responses,
+    // so a rejected request never hands one out.
+    private static boolean isNotModified(HttpServletRequest request, String etag) {
+        String opaqueTag = etag.substring(2);
+        Enumeration<String> ifNoneMatch = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(opaqueTag) || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Admission(AdmissionPriority.SHEDDABLE)
+    @GetMapping(value = "/searchByBirthDateRange", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream users by birth date range", description = "Streams users within the specified birth date range as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Users streamed successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid date range provided", content = @Content)
+    public void streamByBirthDateRange(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to,
+            HttpServletResponse response) throws IOException {
+
+        try (NdjsonResponseWriter writer = new NdjsonResponseWriter(objectMapper, response)) {
+            userService.streamByBirthDateRange(from, to, writer);
+        }
+    }
+
+    @GetMapping("/countByBirthDateRange")
+    @Operation(summary = "Count users by birth date range", description = "Counts the users born within the specified birth date range without loading them")
+    @ApiResponse(responseCode = "200", description = "Users counted successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid date range provided", content = @Content)
+    public ResponseEntity<Map<String, Long>> countByBirthDateRange(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to) {
+
+        long count = userService.countByBirthDateRange(from, to);
+        return ResponseEntity.ok(Collections.singletonMap("count", count));
+    }
+
+    @GetMapping("/birthDateHistogram")
+    @Operation(summary = "Birth date histogram", description = "Counts the users born in each year or month of the specified birth date range")
+    @ApiResponse(responseCode = "200", description = "Histogram computed successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid date range or interval provided", content = @Content)
+    public ResponseEntity<List<BirthDateBucketDTO>> birthDateHistogram(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to,
+            @RequestParam(name = "interval", defaultValue = "YEAR") HistogramInterval interval) {
+
+        List<BirthDateBucketDTO> buckets = userService.birthDateHistogram(from, to, interval);
+        return ResponseEntity.ok(buckets);
+    }
+
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete users", description = "Retrieves up to limit users whose email, first name or last name starts with the prefix, ignoring case, ordered by the matching value")
+    @ApiResponse(responseCode = "200", description = "Users retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Empty prefix or invalid limit provided", content = @Content)
+    public ResponseEntity<List<UserDTO>> autocomplete(
+            @RequestParam(name = "prefix") String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+
+        List<UserDTO> users = userService.autocomplete(prefix, limit);
         return ResponseEntity.ok(users);
     }
 
+    @Admission(AdmissionPriority.CRITICAL)
     @PostMapping
     @Operation(summary = "Create a new user", description = "Creates a new user with the provided user data")
     @ApiResponse(responseCode = "201", description = "User created successfully", content = @Content(schema = @Schema(implementation = UserDTO.class)))
@@ -55,6 +217,61 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @Admission(AdmissionPriority.CRITICAL)
+    @PostMapping("/batch")
+    @Operation(summary = "Create users in bulk", description = "Creates every valid user in one transaction and reports the id or the rejection reason for each item")
+    @ApiResponse(responseCode = "200", description = "Batch processed, see the per-item results")
+    @ApiResponse(responseCode = "400", description = "Batch is too large", content = @Content)
+    public ResponseEntity<List<UserBatchResultDTO>> createBatch(@RequestBody List<UserDTO> userDTOs) {
+        List<UserBatchResultDTO> results = userService.createUsers(userDTOs);
+        return ResponseEntity.ok(results);
+    }
+
+    @Admission(AdmissionPriority.SHEDDABLE)
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(summary = "Import users from CSV",
+            description = "Streams a CSV file into the users table. The header row names the columns email, firstName, lastName, birthDate and optionally address and phone. "
+                    + "Rows are validated like a single user creation. Rows that are invalid or whose email or phone is already taken, "
+                    + "by an existing user or an earlier row of the file, are skipped and listed in the response with their row number.")
+    @ApiResponse(responseCode = "200", description = "File imported, see the rejected rows",
+            content = @Content(schema = @Schema(example = "{\"rejections\": [{\"row\": 3, \"error\": \"The email is already taken\"}], \"imported\": 998, \"rejected\": 2}")))
+    @ApiResponse(responseCode = "400", description = "A required column is missing or the CSV is malformed", content = @Content)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (UserImportReportWriter writer = new UserImportReportWriter(objectMapper, response)) {
+            UserImportResultDTO result = userService.importUsers(request.getInputStream(), writer);
+            writer.finish(result);
+        }
+    }
+
+    @Admission(AdmissionPriority.SHEDDABLE)
+    @GetMapping(value = "/export", produces = {"text/csv", "application/gzip"})
+    @Operation(summary = "Export users as CSV",
+            description = "Streams every user, or the users born within the optional birth date range, as CSV in no particular order. "
+                    + "The header matches the columns read by the import. With gzip=true the file is gzip-compressed.")
+    @ApiResponse(responseCode = "200", description = "Users exported successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid date range provided", content = @Content)
+    public void exportUsers(
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+
+        try (CsvExportOutputStream csv = new CsvExportOutputStream(response, "users.csv", gzip)) {
+            userService.exportUsers(from, to, csv);
+        }
+    }
+
+    @Admission(AdmissionPriority.CRITICAL)
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete users in bulk", description = "Deletes every user with one of the given IDs in a single statement and reports the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Users deleted, see the missing IDs")
+    @ApiResponse(responseCode = "400", description = "No IDs or too many IDs provided", content = @Content)
+    public ResponseEntity<UserBulkDeleteResultDTO> deleteBatch(@RequestBody List<Long> userIds) {
+        UserBulkDeleteResultDTO result = userService.deleteUsers(userIds);
+        return ResponseEntity.ok(result);
+    }
+
+    @Admission(AdmissionPriority.CRITICAL)
     @DeleteMapping("/{userId}")
     @Operation(summary = "Delete user", description = "Deletes a user with the specified ID")
     @ApiResponse(responseCode = "200", description = "User deleted successfully")
@@ -0,0 +1,60 @@
+package com.norbert.clearsolutions.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.norbert.clearsolutions.dto.UserImportRejectionDTO;
+import com.norbert.clearsolutions.dto.UserImportResultDTO;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes the import report as {@code {"rejections": [...], "imported": n, "rejected": m}},
+ * streaming the rejections as they are read so the report is never held in memory. Like
+ * {@link NdjsonResponseWriter}, nothing is written before the first rejection or the summary.
+ */
+@RequiredArgsConstructor
+class UserImportReportWriter implements Consumer<UserImportRejectionDTO>, Closeable {
+    private final ObjectMapper objectMapper;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    @Override
+    public void accept(UserImportRejectionDTO rejection) {
+        try {
+            start();
+            generator.writeObject(rejection);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish(UserImportResultDTO result) throws IOException {
+        start();
+        generator.writeEndArray();
+        generator.writeNumberField("imported", result.getImported());
+        generator.writeNumberField("rejected", result.getRejected());
+        generator.writeEndObject();
+    }
+
+    private void start() throws IOException {
+        if (generator == null) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            generator = objectMapper.createGenerator(response.getOutputStream());
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("rejections");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+}
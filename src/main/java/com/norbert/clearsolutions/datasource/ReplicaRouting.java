@@ -0,0 +1,40 @@
+package com.norbert.clearsolutions.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread's reads as bound to the primary. Read-only transactions otherwise go
+ * to a replica, which may not have applied the latest writes yet.
+ */
+public final class ReplicaRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = ThreadLocal.withInitial(() -> false);
+
+    private ReplicaRouting() {
+    }
+
+    public static boolean isPrimaryOnly() {
+        return PRIMARY_ONLY.get();
+    }
+
+    /**
+     * Runs {@code action} with every read on the primary, e.g. to load a value that is cached
+     * and must therefore not be older than the last write.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(true);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_ONLY.set(previous);
+        }
+    }
+
+    static void setPrimaryOnly(boolean primaryOnly) {
+        if (primaryOnly) {
+            PRIMARY_ONLY.set(true);
+        } else {
+            PRIMARY_ONLY.remove();
+        }
+    }
+}
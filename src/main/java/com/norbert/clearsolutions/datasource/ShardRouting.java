@@ -0,0 +1,31 @@
+package com.norbert.clearsolutions.datasource;
+
+/**
+ * The shard the current thread's connections come from when users are sharded. Set by
+ * {@link Shards} around the work it runs on a shard; the first shard, which is the primary data
+ * source, is used otherwise.
+ */
+public final class ShardRouting {
+    private static final ThreadLocal<Integer> CURRENT = ThreadLocal.withInitial(() -> 0);
+
+    private ShardRouting() {
+    }
+
+    public static int current() {
+        return CURRENT.get();
+    }
+
+    static int set(int shard) {
+        int previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(int previous) {
+        if (previous == 0) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
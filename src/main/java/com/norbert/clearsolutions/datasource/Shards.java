@@ -0,0 +1,184 @@
+package com.norbert.clearsolutions.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Runs work on the shards of the users table. Every piece of work gets a new transaction on its
+ * shard, independent of any transaction the caller has open, because a transaction's connection
+ * is bound to one shard. Shard 0 is the primary data source.
+ * <p>
+ * A user's shard is a hash of its id, so the id alone tells where the user lives. The shard count
+ * must therefore not change once users are stored.
+ */
+public class Shards implements DisposableBean {
+    private final int count;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate readWrite;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService executor = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("user-shard-", 0).daemon().factory());
+    private final Executor decoratedExecutor;
+
+    public Shards(int count, PlatformTransactionManager transactionManager) {
+        this(count, transactionManager, task -> task);
+    }
+
+    /**
+     * @param taskDecorator wraps each task on the calling thread before it runs on a shard thread,
+     *                      so that thread-bound state of the caller can be carried over
+     */
+    public Shards(int count, PlatformTransactionManager transactionManager, TaskDecorator taskDecorator) {
+        if (count < 2) {
+            throw new IllegalArgumentException("At least two shards are required");
+        }
+        this.count = count;
+        this.transactionManager = transactionManager;
+        this.readWrite = new TransactionTemplate(transactionManager, definition(false));
+        this.readOnly = new TransactionTemplate(transactionManager, definition(true));
+        this.decoratedExecutor = task -> executor.execute(taskDecorator.decorate(task));
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(long id) {
+        return Math.floorMod(mix(id), count);
+    }
+
+    /**
+     * Runs {@code action} in a new transaction on {@code shard}.
+     */
+    public <T> T on(int shard, boolean readOnlyTransaction, Supplier<T> action) {
+        int previous = ShardRouting.set(shard);
+        try {
+            return (readOnlyTransaction ? readOnly : readWrite).execute(status -> action.get());
+        } finally {
+            ShardRouting.restore(previous);
+        }
+    }
+
+    /**
+     * Runs {@code action} on each of {@code shards} in parallel, each in a new transaction.
+     *
+     * @return the results in the order of {@code shards}
+     */
+    public <T> List<T> onEach(Collection<Integer> shards, boolean readOnlyTransaction, IntFunction<T> action) {
+        return inParallel(shards, shard -> on(shard, readOnlyTransaction, () -> action.apply(shard)));
+    }
+
+    /**
+     * Calls {@code action} for each of {@code shards} in parallel without choosing a shard or
+     * opening a transaction, and waits for all calls before returning or throwing.
+     *
+     * @return the results in the order of {@code shards}
+     */
+    public <T> List<T> inParallel(Collection<Integer> shards, IntFunction<T> action) {
+        List<CompletableFuture<T>> results = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            results.add(CompletableFuture.supplyAsync(() -> action.apply(shard), decoratedExecutor));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public <T> List<T> onEach(boolean readOnlyTransaction, IntFunction<T> action) {
+        return onEach(all(), readOnlyTransaction, action);
+    }
+
+    /**
+     * Concatenates the streams opened by {@code query} on each shard in turn. Each shard's stream
+     * runs in its own read-only transaction, which ends when that stream is exhausted or the
+     * returned stream is closed, so the returned stream must be consumed on the calling thread.
+     * The shard stays chosen until then, because the query may only run once the stream is read.
+     */
+    public <T> Stream<T> stream(IntFunction<Stream<T>> query) {
+        return IntStream.range(0, count).boxed().flatMap(shard -> open(shard, query));
+    }
+
+    private <T> Stream<T> open(int shard, IntFunction<Stream<T>> query) {
+        int previous = ShardRouting.set(shard);
+        try {
+            TransactionStatus status = transactionManager.getTransaction(definition(true));
+            try {
+                return query.apply(shard).onClose(() -> {
+                    try {
+                        transactionManager.commit(status);
+                    } finally {
+                        ShardRouting.restore(previous);
+                    }
+                });
+            } catch (RuntimeException e) {
+                transactionManager.rollback(status);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            ShardRouting.restore(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Groups values by the shard of the id {@code key} returns.
+     */
+    public <T> List<List<T>> groupByShard(Collection<T> values, Function<T, Long> key) {
+        List<List<T>> groups = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            groups.add(new ArrayList<>());
+        }
+        for (T value : values) {
+            groups.get(shardOf(key.apply(value))).add(value);
+        }
+        return groups;
+    }
+
+    private List<Integer> all() {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    // Ids are handed out in sequence; the murmur3 finalizer spreads neighbouring ids over all shards
+    private static long mix(long id) {
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static TransactionDefinition definition(boolean readOnly) {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        definition.setReadOnly(readOnly);
+        return definition;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package com.norbert.clearsolutions.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BirthDateBucketDTO {
+    @Schema(description = "First birth date counted in the bucket", example = "1990-01-01", required = true)
+    private LocalDate from;
+
+    @Schema(description = "Last birth date counted in the bucket", example = "1990-12-31", required = true)
+    private LocalDate to;
+
+    @Schema(description = "Number of users born between from and to, inclusive", example = "42", required = true)
+    private long count;
+}
@@ -0,0 +1,42 @@
+package com.norbert.clearsolutions.dto;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Width of the buckets of a birth date histogram.
+ */
+public enum HistogramInterval {
+    YEAR {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.with(TemporalAdjusters.firstDayOfYear());
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusYears(1);
+        }
+    },
+    MONTH {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.with(TemporalAdjusters.firstDayOfMonth());
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusMonths(1);
+        }
+    };
+
+    /**
+     * @return the first day of the bucket containing the date
+     */
+    public abstract LocalDate start(LocalDate date);
+
+    /**
+     * @return the first day of the bucket after the one starting at {@code start}
+     */
+    public abstract LocalDate next(LocalDate start);
+}
@@ -0,0 +1,24 @@
+package com.norbert.clearsolutions.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchResultDTO {
+    @Schema(description = "Position of the user in the submitted batch", example = "0", required = true)
+    private Integer index;
+
+    @Schema(description = "Identifier of the created user. Absent when the item was rejected.", example = "1", required = false)
+    private Long id;
+
+    @Schema(description = "Reason the item was rejected. Absent when the user was created.", example = "The email is already taken", required = false)
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.norbert.clearsolutions.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkDeleteResultDTO {
+    @Schema(description = "Identifiers of the users that were deleted", example = "[1, 2]", required = true)
+    private List<Long> deleted;
+
+    @Schema(description = "Requested identifiers that did not match any user", example = "[3]", required = true)
+    private List<Long> missing;
+}
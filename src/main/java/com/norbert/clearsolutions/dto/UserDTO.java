@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,14 +24,17 @@ public class UserDTO {
     @Schema(description = "Email address of the user", example = "user@example.com", required = true)
     @Email(regexp = "^[a-zA-Z0-9._-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$", message = "Invalid email format")
     @NotBlank(message = "Email can not be blank")
+    @Size(max = 319, message = "Email can not be longer than 319 characters")
     private String email;
 
     @Schema(description = "First name of the user", example = "John", required = true)
     @NotBlank(message = "First name can not be blank")
+    @Size(max = 30, message = "First name can not be longer than 30 characters")
     private String firstName;
 
     @Schema(description = "Last name of the user", example = "Doe", required = true)
     @NotBlank(message = "Last name can not be blank")
+    @Size(max = 30, message = "Last name can not be longer than 30 characters")
     private String lastName;
 
     @Schema(description = "Birth date of the user", example = "1990-01-01", required = true)
@@ -38,9 +42,13 @@ public class UserDTO {
     private LocalDate birthDate;
 
     @Schema(description = "Home address of the user", example = "1234 Main St", required = false)
+    @Size(max = 60, message = "Address can not be longer than 60 characters")
     private String address;
 
     @Schema(description = "Phone number of the user", example = "+380123456789", required = false)
     @Pattern(regexp = "^\\+380\\d{9}$", message = "Phone number must be in format +380XXXXXXXXX")
     private String phone;
+
+    @Schema(description = "Row version used for optimistic locking. Ignored when creating a new user.", example = "0", required = false)
+    private Long version;
 }
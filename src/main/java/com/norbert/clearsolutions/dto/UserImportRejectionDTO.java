@@ -0,0 +1,19 @@
+package com.norbert.clearsolutions.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRejectionDTO {
+    @Schema(description = "Position of the rejected row in the file, starting at 1 after the header", example = "3", required = true)
+    private long row;
+
+    @Schema(description = "Reason the row was not imported", example = "The email is already taken", required = true)
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.norbert.clearsolutions.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDTO {
+    @Schema(description = "Number of users created from the file", example = "998", required = true)
+    private long imported;
+
+    @Schema(description = "Number of rows that were skipped", example = "2", required = true)
+    private long rejected;
+}
@@ -0,0 +1,23 @@
+package com.norbert.clearsolutions.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserPageDTO {
+    @Schema(description = "Users of this page, ordered by birth date and id", required = true)
+    private List<UserDTO> users;
+
+    @Schema(description = "Opaque cursor for the next page. Absent on the last page.", example = "AAAdSgAAAAAAAAAq", required = false)
+    private String next;
+}
@@ -3,6 +3,7 @@ package com.norbert.clearsolutions.dto;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,21 +23,28 @@ public class UserUpdateDTO {
 
     @Schema(description = "Updated email address of the user", example = "updated.email@example.com", required = false)
     @Email(regexp = "^[a-zA-Z0-9._-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$", message = "Invalid email format")
+    @Size(max = 319, message = "Email can not be longer than 319 characters")
     private String email;
 
     @Schema(description = "Updated first name of the user", example = "Jane", required = false)
+    @Size(max = 30, message = "First name can not be longer than 30 characters")
     private String firstName;
 
     @Schema(description = "Updated last name of the user", example = "Doe", required = false)
+    @Size(max = 30, message = "Last name can not be longer than 30 characters")
     private String lastName;
 
     @Schema(description = "Updated birth date of the user", example = "1988-05-15", required = false)
     private LocalDate birthDate;
 
     @Schema(description = "Updated home address of the user", example = "5678 Elm St", required = false)
+    @Size(max = 60, message = "Address can not be longer than 60 characters")
     private String address;
 
     @Schema(description = "Updated phone number of the user", example = "+380987654321", required = false)
     @Pattern(regexp = "^\\+380\\d{9}$", message = "Phone number must be in format +380XXXXXXXXX")
     private String phone;
+
+    @Schema(description = "Version the client last read. When present, the update is rejected if the user was modified since.", example = "0", required = false)
+    private Long version;
 }
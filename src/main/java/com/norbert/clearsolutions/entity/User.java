@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.Check;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 
@@ -14,10 +15,12 @@ import java.time.LocalDate;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate
 @Table(name = "users")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -37,7 +40,11 @@ public class User {
     @Column(name = "address", length = 60)
     private String address;
 
-    @Column(name = "phone", length = 14)
+    @Column(name = "phone", length = 14, unique = true)
     @Check(constraints = "phone ~ '^\\+380\\d{9}$' OR phone IS NULL")
     private String phone;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
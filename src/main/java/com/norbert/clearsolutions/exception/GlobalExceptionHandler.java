@@ -2,8 +2,15 @@ package com.norbert.clearsolutions.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,6 +18,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.sql.SQLException;
 
+@Profile("!reactive")
 @RequiredArgsConstructor
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -23,7 +31,7 @@ public class GlobalExceptionHandler {
                 .message(exception.getMessage())
                 .path(request.getRequestURI())
                 .build();
-        return new ResponseEntity<>(apiException,HttpStatus.BAD_REQUEST);
+        return buildResponse(apiException, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(SQLException.class)
@@ -33,7 +41,54 @@ public class GlobalExceptionHandler {
                 .message(ex.getLocalizedMessage())
                 .path(request.getRequestURI())
                 .build();
-        return new ResponseEntity<>(apiException,HttpStatus.BAD_REQUEST);
+        return buildResponse(apiException, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiException> handleDataIntegrityViolation(DataIntegrityViolationException exception) {
+        String message = UserUniqueConstraint.find(exception)
+                .map(UserUniqueConstraint::getMessage)
+                .orElse("The user data violates a database constraint");
+        ApiException apiException = ApiException.builder()
+                .error(HttpStatus.BAD_REQUEST.name())
+                .message(message)
+                .path(request.getRequestURI())
+                .build();
+        return buildResponse(apiException, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiException> handleOptimisticLockingFailure(OptimisticLockingFailureException exception) {
+        ApiException apiException = ApiException.builder()
+                .error(HttpStatus.CONFLICT.name())
+                .message("The user was modified concurrently. Reload it and retry.")
+                .path(request.getRequestURI())
+                .build();
+        return buildResponse(apiException, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(value = {CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ApiException> handleDatabaseUnavailable(RuntimeException exception) {
+        ApiException apiException = ApiException.builder()
+                .error(HttpStatus.SERVICE_UNAVAILABLE.name())
+                .message("The database is busy. Retry later.")
+                .path(request.getRequestURI())
+                .build();
+        return buildResponse(apiException, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiException> handleServiceUnavailable(ServiceUnavailableException exception) {
+        ApiException apiException = ApiException.builder()
+                .error(HttpStatus.SERVICE_UNAVAILABLE.name())
+                .message(exception.getMessage())
+                .path(request.getRequestURI())
+                .build();
+        long retryAfterSeconds = Math.max(1, exception.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(apiException);
     }
 
     @ExceptionHandler(MissingServletRequestParameterException.class)
@@ -45,7 +100,7 @@ public class GlobalExceptionHandler {
                 .message(message)
                 .path(request.getRequestURI())
                 .build();
-        return new ResponseEntity<>(apiException,HttpStatus.BAD_REQUEST);
+        return buildResponse(apiException, HttpStatus.BAD_REQUEST);
     }
     @ExceptionHandler(value = {MethodArgumentNotValidException.class })
     public ResponseEntity<ApiException> handleBadRequestException(MethodArgumentNotValidException exception){
@@ -54,6 +109,13 @@ public class GlobalExceptionHandler {
                 .message(exception.getBody().getDetail())
                 .path(request.getRequestURI())
                 .build();
-        return new ResponseEntity<>(apiException,HttpStatus.BAD_REQUEST);
+        return buildResponse(apiException, HttpStatus.BAD_REQUEST);
+    }
+
+    // Error bodies are always JSON, even when the client only accepts a streaming format.
+    private ResponseEntity<ApiException> buildResponse(ApiException apiException, HttpStatus status) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(apiException);
     }
 }
\ No newline at end of file
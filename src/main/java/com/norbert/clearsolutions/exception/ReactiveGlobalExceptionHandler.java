@@ -0,0 +1,60 @@
+package com.norbert.clearsolutions.exception;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.MissingRequestValueException;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * WebFlux counterpart of {@link GlobalExceptionHandler} producing the same {@link ApiException} bodies.
+ */
+@Profile("reactive")
+@RestControllerAdvice
+public class ReactiveGlobalExceptionHandler {
+
+    @ExceptionHandler(value = {BadRequestException.class, UserNotFoundException.class})
+    public ResponseEntity<ApiException> handleBadRequestException(RuntimeException exception, ServerWebExchange exchange) {
+        return buildResponse(exception.getMessage(), HttpStatus.BAD_REQUEST, exchange);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiException> handleDataIntegrityViolation(DataIntegrityViolationException exception, ServerWebExchange exchange) {
+        String message = UserUniqueConstraint.find(exception)
+                .map(UserUniqueConstraint::getMessage)
+                .orElse("The user data violates a database constraint");
+        return buildResponse(message, HttpStatus.BAD_REQUEST, exchange);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiException> handleOptimisticLockingFailure(OptimisticLockingFailureException exception, ServerWebExchange exchange) {
+        return buildResponse("The user was modified concurrently. Reload it and retry.", HttpStatus.CONFLICT, exchange);
+    }
+
+    @ExceptionHandler(MissingRequestValueException.class)
+    public ResponseEntity<ApiException> handleMissingParameter(MissingRequestValueException exception, ServerWebExchange exchange) {
+        return buildResponse("Required parameter is missing: " + exception.getName(), HttpStatus.BAD_REQUEST, exchange);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiException> handleBindException(WebExchangeBindException exception, ServerWebExchange exchange) {
+        return buildResponse(exception.getBody().getDetail(), HttpStatus.BAD_REQUEST, exchange);
+    }
+
+    private ResponseEntity<ApiException> buildResponse(String message, HttpStatus status, ServerWebExchange exchange) {
+        ApiException apiException = ApiException.builder()
+                .error(status.name())
+                .message(message)
+                .path(exchange.getRequest().getPath().value())
+                .build();
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(apiException);
+    }
+}
@@ -0,0 +1,44 @@
+package com.norbert.clearsolutions.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Unique constraints of the users table and the messages reported when they are violated.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum UserUniqueConstraint {
+    EMAIL("users_email_key", "The email is already taken"),
+    PHONE("users_phone_key", "The phone is already taken");
+
+    private final String constraintName;
+    private final String message;
+
+    /**
+     * Walks the cause chain looking for a known constraint, either by the name Hibernate
+     * extracted or by the name in the driver message.
+     */
+    public static Optional<UserUniqueConstraint> find(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            String name = cause instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName()
+                    : null;
+            String text = name != null ? name : cause.getMessage();
+            if (text == null) {
+                continue;
+            }
+            Optional<UserUniqueConstraint> constraint = Arrays.stream(values())
+                    .filter(value -> text.contains(value.constraintName))
+                    .findFirst();
+            if (constraint.isPresent()) {
+                return constraint;
+            }
+        }
+        return Optional.empty();
+    }
+}
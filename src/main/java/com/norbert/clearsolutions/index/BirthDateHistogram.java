@@ -0,0 +1,127 @@
+package com.norbert.clearsolutions.index;
+
+import com.norbert.clearsolutions.dto.BirthDateBucketDTO;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.repository.BirthDateCount;
+import com.norbert.clearsolutions.repository.UserStore;
+import com.norbert.clearsolutions.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Number of users per birth date, kept in a {@link FenwickTree} indexed by day so that the
+ * count of any date range takes {@code O(log days)} without a query. The tree is seeded from the
+ * users table before the web server starts and then follows the writes made through
+ * {@code UserServiceImpl}; writes made directly in the database or by another instance are not
+ * seen until restart. Birth dates outside {@code histogram.birth-date.min} and {@code max} are not counted.
+ */
+@Profile("!reactive")
+@Slf4j
+@Component
+public class BirthDateHistogram implements InitializingBean {
+    private final UserStore userRepository;
+    private final LocalDate min;
+    private final LocalDate max;
+    private final FenwickTree counts;
+
+    public BirthDateHistogram(UserStore userRepository,
+                              @Value("${histogram.birth-date.min}") String min,
+                              @Value("${histogram.birth-date.max}") String max) {
+        this.userRepository = userRepository;
+        this.min = LocalDate.parse(min);
+        this.max = LocalDate.parse(max);
+        if (this.min.isAfter(this.max)) {
+            throw new IllegalArgumentException("Histogram min birth date must not be after max");
+        }
+        this.counts = new FenwickTree(Math.toIntExact(this.max.toEpochDay() - this.min.toEpochDay() + 1));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long counted = 0;
+        long skipped = 0;
+        for (BirthDateCount day : userRepository.countUsersByBirthDate()) {
+            if (covers(day.getBirthDate())) {
+                counts.add(position(day.getBirthDate()), day.getCount());
+                counted += day.getCount();
+            } else {
+                skipped += day.getCount();
+            }
+        }
+        if (skipped > 0) {
+            log.warn("{} users are born outside [{}, {}] and are not counted by the birth date histogram", skipped, min, max);
+        }
+        log.info("Seeded birth date histogram with {} users", counted);
+    }
+
+    public void add(LocalDate birthDate) {
+        change(birthDate, 1);
+    }
+
+    public void add(LocalDate birthDate, long count) {
+        change(birthDate, count);
+    }
+
+    public void remove(LocalDate birthDate) {
+        change(birthDate, -1);
+    }
+
+    public void move(LocalDate oldBirthDate, LocalDate newBirthDate) {
+        if (oldBirthDate != null && oldBirthDate.equals(newBirthDate)) {
+            return;
+        }
+        change(oldBirthDate, -1);
+        change(newBirthDate, 1);
+    }
+
+    private void change(LocalDate birthDate, long delta) {
+        if (birthDate == null || !covers(birthDate)) {
+            return;
+        }
+        int position = position(birthDate);
+        AfterCommit.run(() -> counts.add(position, delta));
+    }
+
+    /**
+     * @return the number of users born between {@code from} and {@code to}, inclusive
+     */
+    public long count(LocalDate from, LocalDate to) {
+        LocalDate start = from.isBefore(min) ? min : from;
+        LocalDate end = to.isAfter(max) ? max : to;
+        return start.isAfter(end) ? 0 : counts.sum(position(start), position(end));
+    }
+
+    /**
+     * Splits {@code [from, to]} into calendar buckets of the interval. The first and last
+     * buckets are cut at {@code from} and {@code to}, and the range is cut at the histogram bounds.
+     */
+    public List<BirthDateBucketDTO> histogram(LocalDate from, LocalDate to, HistogramInterval interval) {
+        LocalDate start = from.isBefore(min) ? min : from;
+        LocalDate end = to.isAfter(max) ? max : to;
+        List<BirthDateBucketDTO> buckets = new ArrayList<>();
+        for (LocalDate bucket = interval.start(start); !bucket.isAfter(end); bucket = interval.next(bucket)) {
+            LocalDate first = bucket.isBefore(start) ? start : bucket;
+            LocalDate last = interval.next(bucket).minusDays(1);
+            if (last.isAfter(end)) {
+                last = end;
+            }
+            buckets.add(new BirthDateBucketDTO(first, last, count(first, last)));
+        }
+        return buckets;
+    }
+
+    private boolean covers(LocalDate birthDate) {
+        return !birthDate.isBefore(min) && !birthDate.isAfter(max);
+    }
+
+    private int position(LocalDate birthDate) {
+        return (int) (birthDate.toEpochDay() - min.toEpochDay());
+    }
+}
@@ -0,0 +1,55 @@
+package com.norbert.clearsolutions.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Fenwick (binary indexed) tree of counts over the positions {@code [0, size)}.
+ * Both {@link #add} and {@link #sum} touch {@code O(log size)} cells. Every cell update is
+ * atomic, but a sum running concurrently with an add may see only part of that add.
+ */
+public class FenwickTree {
+    // One-based: cell i holds the sum of the (i & -i) positions ending at i - 1.
+    private final AtomicLongArray cells;
+
+    public FenwickTree(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        this.cells = new AtomicLongArray(size + 1);
+    }
+
+    public void add(int position, long delta) {
+        checkPosition(position);
+        for (int i = position + 1; i < cells.length(); i += i & -i) {
+            cells.addAndGet(i, delta);
+        }
+    }
+
+    /**
+     * @return the sum of the counts at positions {@code [from, to]}, 0 when {@code from > to}
+     */
+    public long sum(int from, int to) {
+        checkPosition(from);
+        checkPosition(to);
+        return from > to ? 0 : prefixSum(to + 1) - prefixSum(from);
+    }
+
+    public int size() {
+        return cells.length() - 1;
+    }
+
+    // Sum of the counts at positions [0, end).
+    private long prefixSum(int end) {
+        long sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("Position " + position + " is outside [0, " + size() + ")");
+        }
+    }
+}
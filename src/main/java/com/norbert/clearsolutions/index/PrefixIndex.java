@@ -0,0 +1,347 @@
+package com.norbert.clearsolutions.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sorted {@code (key, id)} entries that answer "the first entries whose key starts with a prefix"
+ * in {@code O(log size + limit)}. Keys are matched case-insensitively.
+ * <p>
+ * Most entries live in a packed sorted run: all keys in one byte array plus an offset and an id per
+ * entry, about the key length + 12 bytes each. Changes go to small concurrent sets of added and
+ * removed entries, which are merged into a new run once they reach an eighth of it, so a change
+ * costs an amortised constant number of copies. Changes are serialized; lookups take no lock and
+ * may or may not see a change made while they run.
+ */
+public class PrefixIndex {
+    private static final int MIN_PENDING_CHANGES = 1024;
+
+    private volatile Snapshot snapshot = new Snapshot(Run.EMPTY);
+    // Until the first load, removals of unknown entries are kept so that load can drop them
+    private boolean loaded;
+    private int pendingChanges;
+
+    public record Match(String key, long id) {
+    }
+
+    public synchronized void add(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        Entry entry = new Entry(encode(key), id);
+        Snapshot current = snapshot;
+        if (current.removed.remove(entry) || current.base.contains(entry)) {
+            return;
+        }
+        if (current.added.add(entry)) {
+            changed();
+        }
+    }
+
+    public synchronized void remove(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        Entry entry = new Entry(encode(key), id);
+        Snapshot current = snapshot;
+        if (current.added.remove(entry)) {
+            return;
+        }
+        if ((!loaded || current.base.contains(entry)) && current.removed.add(entry)) {
+            changed();
+        }
+    }
+
+    /**
+     * Merges entries read from the source of truth. Changes made while they were being read win:
+     * added entries are kept and removed ones are dropped.
+     */
+    synchronized void load(Run.Builder entries) {
+        merge(entries);
+        loaded = true;
+    }
+
+    /**
+     * @return up to {@code limit} entries whose key starts with {@code prefix}, ordered by key and id
+     */
+    public List<Match> find(String prefix, int limit) {
+        Snapshot current = snapshot;
+        byte[] encodedPrefix = encode(prefix);
+        List<Match> matches = new ArrayList<>(Math.min(limit, 64));
+        Run base = current.base;
+        int position = base.lowerBound(encodedPrefix, Long.MIN_VALUE);
+        Iterator<Entry> added = current.added.tailSet(new Entry(encodedPrefix, Long.MIN_VALUE)).iterator();
+        Entry nextAdded = next(added, encodedPrefix);
+        while (matches.size() < limit) {
+            boolean fromBase = position < base.size() && base.startsWith(position, encodedPrefix)
+                    && (nextAdded == null || base.compareTo(position, nextAdded) < 0);
+            if (fromBase) {
+                if (current.removed.isEmpty() || !current.removed.contains(base.entry(position))) {
+                    matches.add(new Match(decode(base.key(position)), base.ids[position]));
+                }
+                position++;
+            } else if (nextAdded != null) {
+                matches.add(new Match(decode(nextAdded.key), nextAdded.id));
+                nextAdded = next(added, encodedPrefix);
+            } else {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current.base.size() + current.added.size() - current.removed.size();
+    }
+
+    /**
+     * @return heap used by the packed run, which holds every entry right after a merge
+     */
+    public long runBytes() {
+        Run base = snapshot.base;
+        return base.keys.length + 4L * base.offsets.length + 8L * base.ids.length;
+    }
+
+    private void changed() {
+        pendingChanges++;
+        if (loaded && pendingChanges >= Math.max(MIN_PENDING_CHANGES, snapshot.base.size() / 8)) {
+            merge(new Run.Builder());
+        }
+    }
+
+    private void merge(Run.Builder entries) {
+        Snapshot current = snapshot;
+        Run base = current.base;
+        for (int i = 0; i < base.size(); i++) {
+            entries.add(base.keys, base.offsets[i], base.offsets[i + 1], base.ids[i]);
+        }
+        for (Entry entry : current.added) {
+            entries.add(entry.key, 0, entry.key.length, entry.id);
+        }
+        snapshot = new Snapshot(entries.build(current.removed));
+        pendingChanges = 0;
+    }
+
+    private static Entry next(Iterator<Entry> entries, byte[] prefix) {
+        if (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.key.length >= prefix.length && Arrays.equals(entry.key, 0, prefix.length, prefix, 0, prefix.length)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] encode(String key) {
+        return key.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private static int compare(byte[] a, int aFrom, int aTo, long aId, byte[] b, int bFrom, int bTo, long bId) {
+        int keys = Arrays.compareUnsigned(a, aFrom, aTo, b, bFrom, bTo);
+        return keys != 0 ? keys : Long.compare(aId, bId);
+    }
+
+    private record Snapshot(Run base, NavigableSet<Entry> added, NavigableSet<Entry> removed) {
+        Snapshot(Run base) {
+            this(base, new ConcurrentSkipListSet<>(), new ConcurrentSkipListSet<>());
+        }
+    }
+
+    private record Entry(byte[] key, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            return compare(key, 0, key.length, id, other.key, 0, other.key.length, other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry entry && id == entry.id && Arrays.equals(key, entry.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(key) + Long.hashCode(id);
+        }
+    }
+
+    /**
+     * Immutable entries sorted by key bytes and id. Key {@code i} is
+     * {@code keys[offsets[i] .. offsets[i + 1])}.
+     */
+    static final class Run {
+        static final Run EMPTY = new Run(new byte[0], new int[]{0}, new long[0]);
+
+        private final byte[] keys;
+        private final int[] offsets;
+        private final long[] ids;
+
+        private Run(byte[] keys, int[] offsets, long[] ids) {
+            this.keys = keys;
+            this.offsets = offsets;
+            this.ids = ids;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        byte[] key(int i) {
+            return Arrays.copyOfRange(keys, offsets[i], offsets[i + 1]);
+        }
+
+        Entry entry(int i) {
+            return new Entry(key(i), ids[i]);
+        }
+
+        boolean contains(Entry entry) {
+            int i = lowerBound(entry.key, entry.id);
+            return i < size() && compareTo(i, entry) == 0;
+        }
+
+        // First position whose entry is not less than (key, id)
+        int lowerBound(byte[] key, long id) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(keys, offsets[middle], offsets[middle + 1], ids[middle], key, 0, key.length, id) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        int compareTo(int i, Entry entry) {
+            return compare(keys, offsets[i], offsets[i + 1], ids[i], entry.key, 0, entry.key.length, entry.id);
+        }
+
+        boolean startsWith(int i, byte[] prefix) {
+            int from = offsets[i];
+            return offsets[i + 1] - from >= prefix.length
+                    && Arrays.equals(keys, from, from + prefix.length, prefix, 0, prefix.length);
+        }
+
+        /**
+         * Collects entries in any order into packed arrays and sorts them once, without an object
+         * per entry: the sort permutes an {@code int} array of entry positions. Already sorted
+         * stretches, such as the old run during a merge, sort in linear time.
+         */
+        static final class Builder {
+            private static final int INSERTION_SORT_THRESHOLD = 16;
+
+            private byte[] keys = new byte[1024];
+            private int[] offsets = new int[65];
+            private long[] ids = new long[64];
+            private int size;
+
+            void add(String key, long id) {
+                if (key != null) {
+                    byte[] encoded = encode(key);
+                    add(encoded, 0, encoded.length, id);
+                }
+            }
+
+            void add(byte[] source, int from, int to, long id) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2 + 1);
+                }
+                int start = offsets[size];
+                int end = start + to - from;
+                if (end > keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(keys.length * 2, end));
+                }
+                System.arraycopy(source, from, keys, start, to - from);
+                offsets[size + 1] = end;
+                ids[size] = id;
+                size++;
+            }
+
+            // Sorts, drops duplicates and the removed entries
+            Run build(NavigableSet<Entry> removed) {
+                int[] order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                sort(order, new int[size], 0, size);
+
+                byte[] sortedKeys = new byte[offsets[size]];
+                int[] sortedOffsets = new int[size + 1];
+                long[] sortedIds = new long[size];
+                int count = 0;
+                Iterator<Entry> removedEntries = removed.iterator();
+                Entry nextRemoved = removedEntries.hasNext() ? removedEntries.next() : null;
+                for (int i = 0; i < size; i++) {
+                    int entry = order[i];
+                    int from = offsets[entry];
+                    int to = offsets[entry + 1];
+                    while (nextRemoved != null && compare(nextRemoved.key, 0, nextRemoved.key.length, nextRemoved.id,
+                            keys, from, to, ids[entry]) < 0) {
+                        nextRemoved = removedEntries.hasNext() ? removedEntries.next() : null;
+                    }
+                    boolean isRemoved = nextRemoved != null
+                            && compare(nextRemoved.key, 0, nextRemoved.key.length, nextRemoved.id, keys, from, to, ids[entry]) == 0;
+                    boolean isDuplicate = count > 0 && sortedIds[count - 1] == ids[entry]
+                            && Arrays.equals(sortedKeys, sortedOffsets[count - 1], sortedOffsets[count], keys, from, to);
+                    if (isRemoved || isDuplicate) {
+                        continue;
+                    }
+                    System.arraycopy(keys, from, sortedKeys, sortedOffsets[count], to - from);
+                    sortedOffsets[count + 1] = sortedOffsets[count] + to - from;
+                    sortedIds[count] = ids[entry];
+                    count++;
+                }
+                return new Run(Arrays.copyOf(sortedKeys, sortedOffsets[count]), Arrays.copyOf(sortedOffsets, count + 1),
+                        Arrays.copyOf(sortedIds, count));
+            }
+
+            // Merge sort of entry positions. Halves that are already in order are not merged, and
+            // short ranges use insertion sort, so sorted stretches cost one comparison per entry.
+            private void sort(int[] order, int[] buffer, int from, int to) {
+                if (to - from <= INSERTION_SORT_THRESHOLD) {
+                    for (int i = from + 1; i < to; i++) {
+                        int entry = order[i];
+                        int j = i;
+                        while (j > from && compareEntries(order[j - 1], entry) > 0) {
+                            order[j] = order[j - 1];
+                            j--;
+                        }
+                        order[j] = entry;
+                    }
+                    return;
+                }
+                int middle = (from + to) >>> 1;
+                sort(order, buffer, from, middle);
+                sort(order, buffer, middle, to);
+                if (compareEntries(order[middle - 1], order[middle]) <= 0) {
+                    return;
+                }
+                System.arraycopy(order, from, buffer, from, middle - from);
+                int left = from;
+                int right = middle;
+                int target = from;
+                while (left < middle && right < to) {
+                    order[target++] = compareEntries(buffer[left], order[right]) <= 0 ? buffer[left++] : order[right++];
+                }
+                System.arraycopy(buffer, left, order, target, middle - left);
+            }
+
+            private int compareEntries(int a, int b) {
+                return compare(keys, offsets[a], offsets[a + 1], ids[a], keys, offsets[b], offsets[b + 1], ids[b]);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.norbert.clearsolutions.index;
+
+import com.norbert.clearsolutions.repository.UserNames;
+import com.norbert.clearsolutions.repository.UserStore;
+import com.norbert.clearsolutions.transaction.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Case-insensitive prefix index over the email, first name and last name of every user, for
+ * autocomplete. It is seeded from the users table once the application is ready, then follows
+ * the writes made through {@code UserServiceImpl} and the CSV import; changes made while seeding
+ * are kept. Writes made directly in the database or by another instance are not seen until
+ * restart, so callers should check the users they load against the prefix.
+ */
+@Profile("!reactive")
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserNameIndex {
+    private final UserStore userRepository;
+    private final PrefixIndex emails = new PrefixIndex();
+    private final PrefixIndex firstNames = new PrefixIndex();
+    private final PrefixIndex lastNames = new PrefixIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        PrefixIndex.Run.Builder emailEntries = new PrefixIndex.Run.Builder();
+        PrefixIndex.Run.Builder firstNameEntries = new PrefixIndex.Run.Builder();
+        PrefixIndex.Run.Builder lastNameEntries = new PrefixIndex.Run.Builder();
+        long count = 0;
+        try (Stream<UserNames> users = userRepository.streamAllNames()) {
+            for (UserNames user : (Iterable<UserNames>) users::iterator) {
+                emailEntries.add(user.email(), user.id());
+                firstNameEntries.add(user.firstName(), user.id());
+                lastNameEntries.add(user.lastName(), user.id());
+                count++;
+            }
+        }
+        emails.load(emailEntries);
+        firstNames.load(firstNameEntries);
+        lastNames.load(lastNameEntries);
+        log.info("Seeded user name index with {} users in {} KB", count,
+                (emails.runBytes() + firstNames.runBytes() + lastNames.runBytes()) / 1024);
+    }
+
+    public void add(Long id, String email, String firstName, String lastName) {
+        AfterCommit.run(() -> {
+            emails.add(email, id);
+            firstNames.add(firstName, id);
+            lastNames.add(lastName, id);
+        });
+    }
+
+    public void remove(Long id, String email, String firstName, String lastName) {
+        AfterCommit.run(() -> {
+            emails.remove(email, id);
+            firstNames.remove(firstName, id);
+            lastNames.remove(lastName, id);
+        });
+    }
+
+    /**
+     * @return ids of up to {@code limit} users with an email, first name or last name starting
+     * with {@code prefix}, ordered by the matching value
+     */
+    public List<Long> find(String prefix, int limit) {
+        List<PrefixIndex.Match> matches = new ArrayList<>(3 * limit);
+        matches.addAll(emails.find(prefix, limit));
+        matches.addAll(firstNames.find(prefix, limit));
+        matches.addAll(lastNames.find(prefix, limit));
+        matches.sort(Comparator.comparing(PrefixIndex.Match::key).thenComparingLong(PrefixIndex.Match::id));
+        Set<Long> ids = new LinkedHashSet<>();
+        for (PrefixIndex.Match match : matches) {
+            if (ids.size() == limit) {
+                break;
+            }
+            ids.add(match.id());
+        }
+        return new ArrayList<>(ids);
+    }
+}
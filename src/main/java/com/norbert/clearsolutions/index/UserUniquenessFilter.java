@@ -0,0 +1,110 @@
+package com.norbert.clearsolutions.index;
+
+import com.norbert.clearsolutions.repository.UserContacts;
+import com.norbert.clearsolutions.repository.UserStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters over the emails and phones in the users table. A negative answer means the
+ * value is definitely not taken and the exact {@code exists} query can be skipped; a positive
+ * answer must be confirmed against the database. Until the filters are seeded every value is
+ * reported as possibly present. Deleted values stay in the filters and only cost a fallback query.
+ */
+@Profile("!reactive")
+@Slf4j
+@Component
+public class UserUniquenessFilter implements MeterBinder {
+    private final UserStore userRepository;
+    private final BloomFilter emails;
+    private final BloomFilter phones;
+    private final long expectedInsertions;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder skippedDatabaseChecks = new LongAdder();
+    private volatile boolean seeded;
+
+    public UserUniquenessFilter(UserStore userRepository,
+                                @Value("${bloom-filter.user.expected-insertions}") long expectedInsertions,
+                                @Value("${bloom-filter.user.false-positive-rate}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.emails = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.phones = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        long count = 0;
+        try (Stream<UserContacts> contacts = userRepository.streamAllContacts()) {
+            for (UserContacts contact : (Iterable<UserContacts>) contacts::iterator) {
+                add(contact.getEmail(), contact.getPhone());
+                count++;
+            }
+        }
+        seeded = true;
+        if (count > expectedInsertions) {
+            log.warn("Seeded uniqueness filter with {} users, more than the {} expected; false positives will exceed the configured rate",
+                    count, expectedInsertions);
+        }
+        log.info("Seeded uniqueness filter with {} users", count);
+    }
+
+    public void add(String email, String phone) {
+        if (email != null) {
+            emails.put(email);
+        }
+        if (phone != null) {
+            phones.put(phone);
+        }
+    }
+
+    public boolean mightContainEmail(String email) {
+        return mightContain(emails, email);
+    }
+
+    public boolean mightContainPhone(String phone) {
+        return mightContain(phones, phone);
+    }
+
+    private boolean mightContain(BloomFilter filter, String value) {
+        if (value == null) {
+            return false;
+        }
+        checks.increment();
+        if (seeded && !filter.mightContain(value)) {
+            skippedDatabaseChecks.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.uniqueness.checks", this, UserUniquenessFilter::checkCount)
+                .description("Email and phone uniqueness checks")
+                .register(registry);
+        FunctionCounter.builder("user.uniqueness.skipped.database.checks", this, UserUniquenessFilter::skippedDatabaseCheckCount)
+                .description("Uniqueness checks answered by the Bloom filter without a query")
+                .register(registry);
+    }
+
+    public long checkCount() {
+        return checks.sum();
+    }
+
+    public long skippedDatabaseCheckCount() {
+        return skippedDatabaseChecks.sum();
+    }
+}
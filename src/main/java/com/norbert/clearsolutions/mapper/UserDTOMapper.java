@@ -18,6 +18,7 @@ public class UserDTOMapper implements Function<User, UserDTO> {
                 .birthDate(user.getBirthDate())
                 .firstName(user.getFirstName())
                 .lastName(user.getLastName())
+                .version(user.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,128 @@
+package com.norbert.clearsolutions.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements and database time of every request as the
+ * {@code http.server.requests.sql.statements} and {@code http.server.requests.sql.time} meters,
+ * tagged like {@code http.server.requests}, and logs a warning for requests over the statement
+ * budget. Optionally reports both in the {@code X-Sql-Statements} and {@code X-Sql-Time-Ms}
+ * response headers; these are written when the body starts, so a streamed response only
+ * counts the statements issued before its first row.
+ */
+@Slf4j
+public class SqlAccountingFilter extends OncePerRequestFilter {
+    static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final SqlStatementRecorder recorder;
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    private final boolean responseHeaders;
+
+    public SqlAccountingFilter(SqlStatementRecorder recorder, MeterRegistry meterRegistry,
+                               int statementBudget, boolean responseHeaders) {
+        this.recorder = recorder;
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        recorder.start();
+        HttpServletResponse accountedResponse = responseHeaders ? new HeaderWritingResponse(response) : response;
+        try {
+            filterChain.doFilter(request, accountedResponse);
+            if (accountedResponse instanceof HeaderWritingResponse headerWriting && !response.isCommitted()) {
+                headerWriting.writeHeaders();
+            }
+        } finally {
+            SqlStatementRecorder.SqlStatistics statistics = recorder.stop();
+            record(request, response, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, SqlStatementRecorder.SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String status = String.valueOf(response.getStatus());
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per request")
+                .tags("method", request.getMethod(), "uri", uri, "status", status)
+                .register(meterRegistry)
+                .record(statistics.statements());
+        Timer.builder("http.server.requests.sql.time")
+                .description("Time spent executing SQL per request")
+                .tags("method", request.getMethod(), "uri", uri, "status", status)
+                .register(meterRegistry)
+                .record(statistics.timeMillis(), TimeUnit.MILLISECONDS);
+        if (statistics.statements() > statementBudget) {
+            log.warn("{} {} executed {} SQL statements in {} ms, over the budget of {}",
+                    request.getMethod(), uri, statistics.statements(), statistics.timeMillis(), statementBudget);
+        }
+    }
+
+    private final class HeaderWritingResponse extends HttpServletResponseWrapper {
+        private boolean headersWritten;
+
+        private HeaderWritingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void writeHeaders() {
+            SqlStatementRecorder.SqlStatistics statistics = recorder.current();
+            if (!headersWritten && statistics != null) {
+                headersWritten = true;
+                setIntHeader(STATEMENTS_HEADER, statistics.statements());
+                setHeader(TIME_HEADER, String.valueOf(statistics.timeMillis()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.norbert.clearsolutions.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.List;
+
+/**
+ * Counts the JDBC statements executed on the current thread between {@link #start()} and
+ * {@link #stop()}, and the time spent executing them. A batch counts as one statement, since it is
+ * one round trip. Statements outside a recording, e.g. on startup, are ignored.
+ * <p>
+ * Work a request hands to other threads, such as the per-shard queries of a sharded search, is
+ * counted for the request if its tasks are wrapped by {@link #decorate(Runnable)}. Statements that
+ * serve several requests at once, such as a coalesced batch insert, are not counted for any.
+ */
+public class SqlStatementRecorder implements QueryExecutionListener, TaskDecorator {
+    private final ThreadLocal<SqlStatistics> current = new ThreadLocal<>();
+
+    public void start() {
+        current.set(new SqlStatistics());
+    }
+
+    public SqlStatistics current() {
+        return current.get();
+    }
+
+    public SqlStatistics stop() {
+        SqlStatistics statistics = current.get();
+        current.remove();
+        return statistics;
+    }
+
+    /**
+     * Makes {@code task} count its statements in the recording of the calling thread, if any.
+     */
+    @Override
+    public Runnable decorate(Runnable task) {
+        SqlStatistics statistics = current.get();
+        if (statistics == null) {
+            return task;
+        }
+        return () -> {
+            SqlStatistics previous = current.get();
+            current.set(statistics);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        record(executionInfo.getElapsedTime());
+    }
+
+    void record(long elapsedMillis) {
+        SqlStatistics statistics = current.get();
+        if (statistics != null) {
+            statistics.add(elapsedMillis);
+        }
+    }
+
+    // Synchronized because decorated tasks of one request may run in parallel
+    public static final class SqlStatistics {
+        private int statements;
+        private long timeMillis;
+
+        private synchronized void add(long elapsedMillis) {
+            statements++;
+            timeMillis += elapsedMillis;
+        }
+
+        public synchronized int statements() {
+            return statements;
+        }
+
+        public synchronized long timeMillis() {
+            return timeMillis;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.norbert.clearsolutions.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Number of users born on one day.
+ */
+public interface BirthDateCount {
+    LocalDate getBirthDate();
+    long getCount();
+}
@@ -0,0 +1,14 @@
+package com.norbert.clearsolutions.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Key, names and birth date of a deleted user, as returned by {@code DELETE ... RETURNING}.
+ */
+public interface DeletedUser {
+    Long getId();
+    String getEmail();
+    String getFirstName();
+    String getLastName();
+    LocalDate getBirthDate();
+}
@@ -0,0 +1,152 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.datasource.Shards;
+import com.norbert.clearsolutions.exception.UserUniqueConstraint;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The state that must be global when users are sharded, kept on the first shard: the sequence
+ * user ids are drawn from and the {@code user_emails} and {@code user_phones} tables, which map
+ * every taken email and phone to its user. The unique constraints of a shard's users table only
+ * cover that shard; claiming the key here first makes emails and phones unique across shards.
+ * <p>
+ * Keys are claimed before the user is written to its shard and released after the user is
+ * deleted or has changed them. A failure between the two steps can leave a key claimed by a
+ * user that does not hold it.
+ */
+public class GlobalUserKeys {
+    // Matches users_id_seq, which V3 made step by 50; each nextval reserves the 50 ids up to its value
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String CLAIM_EMAIL = """
+            INSERT INTO user_emails (email, user_id) VALUES (?, ?)
+            ON CONFLICT (email) DO UPDATE SET user_id = user_emails.user_id
+            RETURNING user_id""";
+    private static final String CLAIM_PHONE = """
+            INSERT INTO user_phones (phone, user_id) VALUES (?, ?)
+            ON CONFLICT (phone) DO UPDATE SET user_id = user_phones.user_id
+            RETURNING user_id""";
+    private static final String UNCLAIMED_USERS_EXIST = """
+            SELECT EXISTS (SELECT 1 FROM users u
+                           WHERE NOT EXISTS (SELECT 1 FROM user_emails e WHERE e.email = u.email AND e.user_id = u.id))""";
+
+    private final Shards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final Queue<Long> ids = new ConcurrentLinkedQueue<>();
+
+    public GlobalUserKeys(Shards shards, JdbcTemplate jdbcTemplate) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Takes an id from the reserved block, reserving the next block when it runs out. No lock is
+     * held across the database call: callers that find the block empty at the same time each
+     * reserve their own, and the ids they do not take are queued for the next callers.
+     */
+    public long nextId() {
+        Long id = ids.poll();
+        if (id != null) {
+            return id;
+        }
+        long last = shards.on(0, false, () -> jdbcTemplate.queryForObject("SELECT nextval('users_id_seq')", Long.class));
+        long first = Math.max(1, last - ID_BLOCK_SIZE + 1);
+        for (long next = first + 1; next <= last; next++) {
+            ids.add(next);
+        }
+        return first;
+    }
+
+    /**
+     * Whether the first shard holds users whose email is not claimed, which were written before the
+     * users were sharded. They stay on the first shard whatever shard their id maps to.
+     */
+    public boolean hasUnclaimedUsers() {
+        return Boolean.TRUE.equals(shards.on(0, true, () -> jdbcTemplate.queryForObject(UNCLAIMED_USERS_EXIST, Boolean.class)));
+    }
+
+    /**
+     * Claims the email and phone of each user for it, all or none.
+     *
+     * @throws DuplicateKeyException if another user holds one of them
+     */
+    public void claim(Collection<UserKeys> users) {
+        shards.on(0, false, () -> {
+            for (UserKeys user : users) {
+                claim(CLAIM_EMAIL, user.email(), user.id(), UserUniqueConstraint.EMAIL);
+                if (user.phone() != null) {
+                    claim(CLAIM_PHONE, user.phone(), user.id(), UserUniqueConstraint.PHONE);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void claim(String sql, String key, long id, UserUniqueConstraint constraint) {
+        Long holder = jdbcTemplate.queryForObject(sql, Long.class, key, id);
+        if (!Objects.equals(holder, id)) {
+            throw new DuplicateKeyException("Key held by another user violates unique constraint \""
+                    + constraint.getConstraintName() + "\"");
+        }
+    }
+
+    /**
+     * Releases the keys of the user other than the ones it still holds, which may be null.
+     */
+    public void releaseExcept(long id, String email, String phone) {
+        shards.on(0, false, () -> {
+            if (email == null) {
+                jdbcTemplate.update("DELETE FROM user_emails WHERE user_id = ?", id);
+            } else {
+                jdbcTemplate.update("DELETE FROM user_emails WHERE user_id = ? AND email <> ?", id, email);
+            }
+            if (phone == null) {
+                jdbcTemplate.update("DELETE FROM user_phones WHERE user_id = ?", id);
+            } else {
+                jdbcTemplate.update("DELETE FROM user_phones WHERE user_id = ? AND phone <> ?", id, phone);
+            }
+            return null;
+        });
+    }
+
+    public void releaseAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = userIds.toArray(Long[]::new);
+        shards.on(0, false, () -> {
+            jdbcTemplate.update("DELETE FROM user_emails WHERE user_id = ANY(?)", (Object) ids);
+            jdbcTemplate.update("DELETE FROM user_phones WHERE user_id = ANY(?)", (Object) ids);
+            return null;
+        });
+    }
+
+    public boolean emailExists(String email) {
+        return !findTakenEmails(List.of(email)).isEmpty();
+    }
+
+    public boolean phoneExists(String phone) {
+        return !findTakenPhones(List.of(phone)).isEmpty();
+    }
+
+    public List<String> findTakenEmails(Collection<String> emails) {
+        String[] values = emails.toArray(String[]::new);
+        return shards.on(0, true, () -> jdbcTemplate.queryForList(
+                "SELECT email FROM user_emails WHERE email = ANY(?)", String.class, (Object) values));
+    }
+
+    public List<String> findTakenPhones(Collection<String> phones) {
+        String[] values = phones.toArray(String[]::new);
+        return shards.on(0, true, () -> jdbcTemplate.queryForList(
+                "SELECT phone FROM user_phones WHERE phone = ANY(?)", String.class, (Object) values));
+    }
+
+    public record UserKeys(long id, String email, String phone) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.entity.User;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * R2DBC access to the users table for the reactive profile. Rows are mapped onto the
+ * {@link User} class so the rest of the code can keep using {@code UserDTOMapper}.
+ */
+@Profile("reactive")
+@Repository
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+    private static final String COLUMNS = "id, email, first_name, last_name, birth_date, address, phone, version";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Flux<User> findAllByBirthDateBetween(LocalDate from, LocalDate to) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users WHERE birth_date BETWEEN :from AND :to")
+                .bind("from", from)
+                .bind("to", to)
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    public Mono<Long> insert(User user) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        INSERT INTO users (email, first_name, last_name, birth_date, address, phone)
+                        VALUES (:email, :firstName, :lastName, :birthDate, :address, :phone)
+                        RETURNING id""")
+                .bind("email", user.getEmail())
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("birthDate", user.getBirthDate());
+        spec = bindNullable(spec, "address", user.getAddress());
+        spec = bindNullable(spec, "phone", user.getPhone());
+        return spec.map(row -> row.get("id", Long.class)).one();
+    }
+
+    /**
+     * Writes only the given columns, guarded by the version the caller read.
+     *
+     * @param changes column name to new value; keys must be column names of the users table
+     * @return the new version, empty when the row is gone or its version moved on
+     */
+    public Mono<Long> updateColumns(Long id, Long expectedVersion, Map<String, Object> changes) {
+        String assignments = changes.keySet().stream()
+                .map(column -> column + " = :" + column)
+                .collect(Collectors.joining(", "));
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                        "UPDATE users SET " + assignments + ", version = version + 1 "
+                                + "WHERE id = :id AND version = :version RETURNING version")
+                .bind("id", id)
+                .bind("version", expectedVersion);
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            spec = spec.bind(change.getKey(), change.getValue());
+        }
+        return spec.map(row -> row.get("version", Long.class)).one();
+    }
+
+    /**
+     * Overwrites every column of the user. Email, names and birth date must not be null.
+     */
+    public Mono<Long> replace(User user) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        UPDATE users SET email = :email, first_name = :first_name, last_name = :last_name,
+                            birth_date = :birth_date, address = :address, phone = :phone, version = version + 1
+                        WHERE id = :id""")
+                .bind("id", user.getId())
+                .bind("email", user.getEmail())
+                .bind("first_name", user.getFirstName())
+                .bind("last_name", user.getLastName())
+                .bind("birth_date", user.getBirthDate());
+        spec = bindNullable(spec, "address", user.getAddress());
+        spec = bindNullable(spec, "phone", user.getPhone());
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM users WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Flux<Long> deleteAllByIdReturningIds(Collection<Long> ids) {
+        return databaseClient.sql("DELETE FROM users WHERE id = ANY(:ids) RETURNING id")
+                .bind("ids", ids.toArray(Long[]::new))
+                .map(row -> row.get("id", Long.class))
+                .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    private static User toUser(Readable row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .email(row.get("email", String.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .birthDate(row.get("birth_date", LocalDate.class))
+                .address(row.get("address", String.class))
+                .phone(row.get("phone", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
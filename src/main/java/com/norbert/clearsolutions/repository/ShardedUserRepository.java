@@ -0,0 +1,310 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.datasource.Shards;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.repository.GlobalUserKeys.UserKeys;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link UserStore} over hash-sharded users tables. Calls that name a user go to the shard
+ * of its id, and birth date searches ask every shard in parallel and merge the sorted results,
+ * so a keyset page over {@code (birth_date, id)} is the same page as on a single table. Writes
+ * that span shards run in one transaction per shard; a failed batch insert is undone on the
+ * shards where it succeeded.
+ * <p>
+ * New users get their id from {@link GlobalUserKeys} rather than from Hibernate, because the id
+ * decides the shard, and their email and phone are claimed there before the insert.
+ */
+public final class ShardedUserRepository implements UserStore {
+    private static final String INSERT_USER = """
+            INSERT INTO users (id, email, first_name, last_name, birth_date, address, phone)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""";
+    private static final Comparator<UserDTO> BY_BIRTH_DATE_AND_ID = Comparator.comparing(UserDTO::getBirthDate)
+            .thenComparing(UserDTO::getId);
+
+    private final UserStore target;
+    private final Shards shards;
+    private final GlobalUserKeys keys;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param target runs each query on the shard it is routed to
+     */
+    public ShardedUserRepository(UserStore target, Shards shards, GlobalUserKeys keys, JdbcTemplate jdbcTemplate) {
+        this.target = target;
+        this.shards = shards;
+        this.keys = keys;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return onShardOf(id, true, () -> target.findById(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return onShardOf(id, true, () -> target.existsById(id));
+    }
+
+    @Override
+    public Optional<UserDTO> findUserDTOById(Long id) {
+        return onShardOf(id, true, () -> target.findUserDTOById(id));
+    }
+
+    @Override
+    public <S extends User> S save(S user) {
+        return user.getId() == null ? insert(List.of(user)).get(0) : update(user, target::save);
+    }
+
+    @Override
+    public <S extends User> S saveAndFlush(S user) {
+        return user.getId() == null ? insert(List.of(user)).get(0) : update(user, target::saveAndFlush);
+    }
+
+    @Override
+    public <S extends User> List<S> saveAll(Iterable<S> users) {
+        List<S> list = new ArrayList<>();
+        users.forEach(list::add);
+        return insert(list);
+    }
+
+    @Override
+    public Optional<DeletedUser> deleteUserByIdReturning(Long id) {
+        Optional<DeletedUser> deleted = onShardOf(id, false, () -> target.deleteUserByIdReturning(id));
+        deleted.ifPresent(user -> keys.releaseAll(List.of(user.getId())));
+        return deleted;
+    }
+
+    @Override
+    public List<DeletedUser> deleteAllByIdReturning(Collection<Long> ids) {
+        List<List<Long>> byShard = shards.groupByShard(ids, Function.identity());
+        List<DeletedUser> deleted = flatten(shards.onEach(nonEmpty(byShard), false,
+                shard -> target.deleteAllByIdReturning(byShard.get(shard))));
+        keys.releaseAll(deleted.stream().map(DeletedUser::getId).toList());
+        return deleted;
+    }
+
+    @Override
+    public Boolean existsByEmail(String email) {
+        return keys.emailExists(email);
+    }
+
+    @Override
+    public Boolean existsByPhone(String phone) {
+        return keys.phoneExists(phone);
+    }
+
+    @Override
+    public List<String> findExistingEmails(Collection<String> emails) {
+        return keys.findTakenEmails(emails);
+    }
+
+    @Override
+    public List<String> findExistingPhones(Collection<String> phones) {
+        return keys.findTakenPhones(phones);
+    }
+
+    @Override
+    public List<UserDTO> findUserDTOsByIdIn(Collection<Long> ids) {
+        List<List<Long>> byShard = shards.groupByShard(ids, Function.identity());
+        return flatten(shards.onEach(nonEmpty(byShard), true, shard -> target.findUserDTOsByIdIn(byShard.get(shard))));
+    }
+
+    @Override
+    public List<UserDTO> findUserDTOsByBirthDateBetween(LocalDate from, LocalDate to) {
+        return merge(shards.onEach(true, shard -> sorted(target.findUserDTOsByBirthDateBetween(from, to))), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<UserDTO> findUserDTOPageByBirthDateBetween(LocalDate from, LocalDate to, Limit limit) {
+        return merge(shards.onEach(true, shard -> target.findUserDTOPageByBirthDateBetween(from, to, limit)), limit.max());
+    }
+
+    @Override
+    public List<UserDTO> findUserDTOPageByBirthDateBetweenAfter(LocalDate from, LocalDate to,
+                                                                LocalDate afterBirthDate, Long afterId, Limit limit) {
+        return merge(shards.onEach(true, shard -> target.findUserDTOPageByBirthDateBetweenAfter(
+                from, to, afterBirthDate, afterId, limit)), limit.max());
+    }
+
+    @Override
+    public Stream<UserDTO> streamUserDTOsByBirthDateBetween(LocalDate from, LocalDate to) {
+        return shards.stream(shard -> target.streamUserDTOsByBirthDateBetween(from, to));
+    }
+
+    @Override
+    public Stream<UserContacts> streamAllContacts() {
+        return shards.stream(shard -> target.streamAllContacts());
+    }
+
+    @Override
+    public Stream<UserNames> streamAllNames() {
+        return shards.stream(shard -> target.streamAllNames());
+    }
+
+    @Override
+    public List<BirthDateCount> countUsersByBirthDate() {
+        TreeMap<LocalDate, Long> counts = new TreeMap<>();
+        for (List<BirthDateCount> shardCounts : shards.onEach(true, shard -> target.countUsersByBirthDate())) {
+            for (BirthDateCount day : shardCounts) {
+                counts.merge(day.getBirthDate(), day.getCount(), Long::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .<BirthDateCount>map(day -> new MergedBirthDateCount(day.getKey(), day.getValue()))
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedUserRepository over " + shards.count() + " shards";
+    }
+
+    private <T> T onShardOf(long id, boolean readOnly, Supplier<T> query) {
+        return shards.on(shards.shardOf(id), readOnly, query);
+    }
+
+    private <S extends User> S update(S user, UnaryOperator<S> write) {
+        // The new email and phone are claimed before the update, the replaced ones released after it
+        long id = user.getId();
+        keys.claim(List.of(new UserKeys(id, user.getEmail(), user.getPhone())));
+        S saved;
+        try {
+            saved = onShardOf(id, false, () -> write.apply(user));
+        } catch (RuntimeException e) {
+            Optional<User> current = onShardOf(id, true, () -> target.findById(id));
+            keys.releaseExcept(id, current.map(User::getEmail).orElse(null), current.map(User::getPhone).orElse(null));
+            throw e;
+        }
+        keys.releaseExcept(id, saved.getEmail(), saved.getPhone());
+        return saved;
+    }
+
+    private <S extends User> List<S> insert(List<S> users) {
+        for (User user : users) {
+            user.setId(keys.nextId());
+        }
+        keys.claim(users.stream().map(user -> new UserKeys(user.getId(), user.getEmail(), user.getPhone())).toList());
+        List<List<S>> byShard = shards.groupByShard(users, User::getId);
+        List<Integer> targets = nonEmpty(byShard);
+        List<Optional<RuntimeException>> failures = shards.inParallel(targets, shard -> {
+            try {
+                shards.on(shard, false, () -> jdbcTemplate.batchUpdate(INSERT_USER, byShard.get(shard), byShard.get(shard).size(),
+                        (statement, user) -> {
+                            statement.setLong(1, user.getId());
+                            statement.setString(2, user.getEmail());
+                            statement.setString(3, user.getFirstName());
+                            statement.setString(4, user.getLastName());
+                            statement.setDate(5, Date.valueOf(user.getBirthDate()));
+                            statement.setString(6, user.getAddress());
+                            statement.setString(7, user.getPhone());
+                        }));
+                return Optional.<RuntimeException>empty();
+            } catch (RuntimeException e) {
+                return Optional.of(e);
+            }
+        });
+        Optional<RuntimeException> failure = failures.stream().flatMap(Optional::stream).findFirst();
+        if (failure.isPresent()) {
+            undoInsert(byShard, targets, failures);
+            keys.releaseAll(users.stream().map(User::getId).toList());
+            users.forEach(user -> user.setId(null));
+            throw failure.get();
+        }
+        users.forEach(user -> user.setVersion(0L));
+        return users;
+    }
+
+    private <S extends User> void undoInsert(List<List<S>> byShard, List<Integer> targets, List<Optional<RuntimeException>> failures) {
+        List<Integer> inserted = IntStream.range(0, targets.size())
+                .filter(i -> failures.get(i).isEmpty())
+                .mapToObj(targets::get)
+                .toList();
+        shards.onEach(inserted, false, shard -> jdbcTemplate.update("DELETE FROM users WHERE id = ANY(?)",
+                (Object) byShard.get(shard).stream().map(User::getId).toArray(Long[]::new)));
+    }
+
+    private static List<UserDTO> sorted(List<UserDTO> users) {
+        List<UserDTO> copy = new ArrayList<>(users);
+        copy.sort(BY_BIRTH_DATE_AND_ID);
+        return copy;
+    }
+
+    /**
+     * Merges runs sorted by {@code (birthDate, id)} into the first {@code limit} users overall.
+     */
+    static List<UserDTO> merge(List<List<UserDTO>> runs, int limit) {
+        PriorityQueue<RunCursor> heads = new PriorityQueue<>(Comparator.comparing(RunCursor::head, BY_BIRTH_DATE_AND_ID));
+        long total = 0;
+        for (List<UserDTO> run : runs) {
+            total += run.size();
+            if (!run.isEmpty()) {
+                heads.add(new RunCursor(run));
+            }
+        }
+        List<UserDTO> merged = new ArrayList<>((int) Math.min(total, limit));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            RunCursor cursor = heads.poll();
+            merged.add(cursor.head());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static List<Integer> nonEmpty(List<? extends List<?>> byShard) {
+        return IntStream.range(0, byShard.size()).filter(shard -> !byShard.get(shard).isEmpty()).boxed().toList();
+    }
+
+    private static <T> List<T> flatten(List<List<T>> lists) {
+        return lists.stream().flatMap(List::stream).toList();
+    }
+
+    private static final class RunCursor {
+        private final List<UserDTO> run;
+        private int position;
+
+        private RunCursor(List<UserDTO> run) {
+            this.run = run;
+        }
+
+        UserDTO head() {
+            return run.get(position);
+        }
+
+        boolean advance() {
+            return ++position < run.size();
+        }
+    }
+
+    private record MergedBirthDateCount(LocalDate birthDate, long count) implements BirthDateCount {
+        @Override
+        public LocalDate getBirthDate() {
+            return birthDate;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.norbert.clearsolutions.repository;
+
+/**
+ * Projection of the unique contact columns of a user.
+ */
+public interface UserContacts {
+    String getEmail();
+    String getPhone();
+}
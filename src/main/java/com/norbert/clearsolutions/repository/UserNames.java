@@ -0,0 +1,9 @@
+package com.norbert.clearsolutions.repository;
+
+/**
+ * The columns a user can be looked up by with autocomplete. A constructor projection rather than
+ * an interface one, because the seeding query reads every user and interface projections pay a
+ * proxy call per getter.
+ */
+public record UserNames(Long id, String email, String firstName, String lastName) {
+}
@@ -1,9 +1,99 @@
 package com.norbert.clearsolutions.repository;
 
+import com.norbert.clearsolutions.dto.UserDTO;
 import com.norbert.clearsolutions.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface UserRepository extends JpaRepository<User, Long>, UserStore {
+    /**
+     * Reads rows straight into {@link UserDTO}, skipping the entity instance, its dirty-checking
+     * snapshot and the mapping step. Used in read-only transactions, where Hibernate does not flush.
+     */
+    String USER_DTO_PROJECTION = "select new com.norbert.clearsolutions.dto.UserDTO("
+            + "u.id, u.email, u.firstName, u.lastName, u.birthDate, u.address, u.phone, u.version) from User u";
+
+    String DELETED_USER_RETURNING = "RETURNING id, email, first_name AS firstName, last_name AS lastName, birth_date AS birthDate";
 
-public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
     Boolean existsByPhone(String phone);
+
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_PROJECTION + " where u.id = :id")
+    Optional<UserDTO> findUserDTOById(Long id);
+
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_PROJECTION + " where u.birthDate between :from and :to")
+    List<UserDTO> findUserDTOsByBirthDateBetween(LocalDate from, LocalDate to);
+
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_PROJECTION + " where u.id in :ids")
+    List<UserDTO> findUserDTOsByIdIn(Collection<Long> ids);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    @Query("select u.phone from User u where u.phone in :phones")
+    List<String> findExistingPhones(Collection<String> phones);
+
+    /**
+     * First page of a keyset scan over {@code (birth_date, id)}.
+     */
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_PROJECTION + " where u.birthDate between :from and :to order by u.birthDate, u.id")
+    List<UserDTO> findUserDTOPageByBirthDateBetween(LocalDate from, LocalDate to, Limit limit);
+
+    /**
+     * Page after the user at {@code (afterBirthDate, afterId)}. The row comparison lets Postgres
+     * start the index scan at the cursor, so every page costs the same regardless of its depth.
+     */
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_PROJECTION + " where u.birthDate between :from and :to"
+            + " and (u.birthDate, u.id) > (:afterBirthDate, :afterId) order by u.birthDate, u.id")
+    List<UserDTO> findUserDTOPageByBirthDateBetweenAfter(LocalDate from, LocalDate to,
+                                                        LocalDate afterBirthDate, Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email as email, u.phone as phone from User u")
+    Stream<UserContacts> streamAllContacts();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.norbert.clearsolutions.repository.UserNames(u.id, u.email, u.firstName, u.lastName) from User u")
+    Stream<UserNames> streamAllNames();
+
+    /**
+     * Forward-only cursor over the users in the range. Must be consumed inside a transaction,
+     * otherwise the PostgreSQL driver ignores the fetch size and buffers the whole result set.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(USER_DTO_PROJECTION + " where u.birthDate between :from and :to")
+    Stream<UserDTO> streamUserDTOsByBirthDateBetween(LocalDate from, LocalDate to);
+
+    @Transactional(readOnly = true)
+    @Query("select u.birthDate as birthDate, count(u) as count from User u group by u.birthDate")
+    List<BirthDateCount> countUsersByBirthDate();
+
+    /**
+     * Single {@code DELETE} without loading the entity first, unlike {@link #deleteById}.
+     *
+     * @return the deleted user, empty when no user has the id
+     */
+    @Transactional
+    @Query(value = "DELETE FROM users WHERE id = :id " + DELETED_USER_RETURNING, nativeQuery = true)
+    Optional<DeletedUser> deleteUserByIdReturning(Long id);
+
+    @Transactional
+    @Query(value = "DELETE FROM users WHERE id IN (:ids) " + DELETED_USER_RETURNING, nativeQuery = true)
+    List<DeletedUser> deleteAllByIdReturning(Collection<Long> ids);
 }
@@ -0,0 +1,59 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The user queries and writes the service and the in-memory indexes run. {@link UserRepository}
+ * implements it over a single users table and {@link ShardedUserRepository} over sharded ones;
+ * see {@link UserRepository} for what each query returns.
+ */
+public interface UserStore {
+    Optional<User> findById(Long id);
+
+    boolean existsById(Long id);
+
+    Optional<UserDTO> findUserDTOById(Long id);
+
+    <S extends User> S save(S user);
+
+    <S extends User> S saveAndFlush(S user);
+
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    Optional<DeletedUser> deleteUserByIdReturning(Long id);
+
+    List<DeletedUser> deleteAllByIdReturning(Collection<Long> ids);
+
+    Boolean existsByEmail(String email);
+
+    Boolean existsByPhone(String phone);
+
+    List<String> findExistingEmails(Collection<String> emails);
+
+    List<String> findExistingPhones(Collection<String> phones);
+
+    List<UserDTO> findUserDTOsByIdIn(Collection<Long> ids);
+
+    List<UserDTO> findUserDTOsByBirthDateBetween(LocalDate from, LocalDate to);
+
+    List<UserDTO> findUserDTOPageByBirthDateBetween(LocalDate from, LocalDate to, Limit limit);
+
+    List<UserDTO> findUserDTOPageByBirthDateBetweenAfter(LocalDate from, LocalDate to,
+                                                         LocalDate afterBirthDate, Long afterId, Limit limit);
+
+    Stream<UserDTO> streamUserDTOsByBirthDateBetween(LocalDate from, LocalDate to);
+
+    Stream<UserContacts> streamAllContacts();
+
+    Stream<UserNames> streamAllNames();
+
+    List<BirthDateCount> countUsersByBirthDate();
+}
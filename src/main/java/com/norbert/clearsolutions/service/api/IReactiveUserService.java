@@ -0,0 +1,23 @@
+package com.norbert.clearsolutions.service.api;
+
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link IUserService} used by the reactive profile.
+ */
+public interface IReactiveUserService {
+    Mono<UserDTO> getUser(String userId);
+    Mono<Long> createUser(UserDTO userDto);
+    Mono<Void> updateUser(UserUpdateDTO userUpdateDTO);
+    Mono<UserDTO> patchUser(UserUpdateDTO userUpdateDTO);
+    Mono<Void> deleteUser(String userId);
+    Mono<UserBulkDeleteResultDTO> deleteUsers(List<Long> userIds);
+    Flux<UserDTO> searchByBirthDateRange(LocalDate from, LocalDate to);
+}
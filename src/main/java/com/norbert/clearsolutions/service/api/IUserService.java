@@ -1,15 +1,37 @@
 package com.norbert.clearsolutions.service.api;
 
 
+import com.norbert.clearsolutions.dto.BirthDateBucketDTO;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.dto.UserBatchResultDTO;
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
 import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserImportRejectionDTO;
+import com.norbert.clearsolutions.dto.UserImportResultDTO;
+import com.norbert.clearsolutions.dto.UserPageDTO;
 import com.norbert.clearsolutions.dto.UserUpdateDTO;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IUserService {
+    UserDTO getUser(String userId);
     Long createUser(UserDTO userDto);
+    List<UserBatchResultDTO> createUsers(List<UserDTO> userDTOs);
     void updateUser(UserUpdateDTO userUpdateDTO);
+    UserDTO patchUser(UserUpdateDTO userUpdateDTO);
     void deleteUser(String userId);
+    UserBulkDeleteResultDTO deleteUsers(List<Long> userIds);
+    String getUsersVersion();
     List<UserDTO> searchByBirthDateRange(LocalDate from, LocalDate to);
+    UserPageDTO searchByBirthDateRange(LocalDate from, LocalDate to, int limit, String cursor);
+    void streamByBirthDateRange(LocalDate from, LocalDate to, Consumer<? super UserDTO> consumer);
+    long countByBirthDateRange(LocalDate from, LocalDate to);
+    List<BirthDateBucketDTO> birthDateHistogram(LocalDate from, LocalDate to, HistogramInterval interval);
+    List<UserDTO> autocomplete(String prefix, int limit);
+    UserImportResultDTO importUsers(InputStream csv, Consumer<? super UserImportRejectionDTO> rejections);
+    long exportUsers(LocalDate from, LocalDate to, OutputStream csv);
 }
@@ -0,0 +1,41 @@
+package com.norbert.clearsolutions.service.impl;
+
+import com.norbert.clearsolutions.exception.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position after the last user of a page in {@code (birth_date, id)} order, encoded for clients as
+ * an opaque URL-safe token.
+ */
+public record BirthDateCursor(LocalDate birthDate, long id) {
+    private static final int ENCODED_BYTES = Long.BYTES * 2;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(birthDate.toEpochDay())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static BirthDateCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (bytes.length != ENCODED_BYTES) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long epochDay = buffer.getLong();
+        long id = buffer.getLong();
+        if (epochDay < LocalDate.MIN.toEpochDay() || epochDay > LocalDate.MAX.toEpochDay()) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return new BirthDateCursor(LocalDate.ofEpochDay(epochDay), id);
+    }
+}
@@ -0,0 +1,189 @@
+package com.norbert.clearsolutions.service.impl;
+
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.exception.BadRequestException;
+import com.norbert.clearsolutions.exception.UserNotFoundException;
+import com.norbert.clearsolutions.mapper.UserDTOMapper;
+import com.norbert.clearsolutions.repository.ReactiveUserRepository;
+import com.norbert.clearsolutions.service.api.IReactiveUserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Profile("reactive")
+@Service
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements IReactiveUserService {
+    private final ReactiveUserRepository userRepository;
+    private final UserDTOMapper userDTOMapper;
+
+    @Value(value = "${constants.min-user-age}")
+    private Integer minUserAge;
+
+    @Value(value = "${constants.max-batch-size}")
+    private Integer maxBatchSize;
+
+    @Override
+    public Mono<UserDTO> getUser(String userIdStr) {
+        return Mono.fromCallable(() -> parseToLong(userIdStr))
+                .flatMap(id -> userRepository.findById(id)
+                        .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User is not found with id: " + id))))
+                .map(userDTOMapper);
+    }
+
+    @Override
+    public Mono<Long> createUser(UserDTO userDTO) {
+        if (!isUserAdult(userDTO.getBirthDate())) {
+            return Mono.error(new BadRequestException("Invalid birth date. You should have 18 years old"));
+        }
+        // Uniqueness is enforced by the users_email_key and users_phone_key constraints.
+        return userRepository.insert(User.builder()
+                .firstName(userDTO.getFirstName())
+                .lastName(userDTO.getLastName())
+                .email(userDTO.getEmail())
+                .birthDate(userDTO.getBirthDate())
+                .phone(userDTO.getPhone())
+                .address(userDTO.getAddress())
+                .build());
+    }
+
+    @Override
+    public Mono<Void> updateUser(UserUpdateDTO userDTO) {
+        Long id = userDTO.getId();
+        if (userDTO.getBirthDate() == null || !isUserAdult(userDTO.getBirthDate())) {
+            return Mono.error(new BadRequestException("Invalid birth date. You should have 18 years old"));
+        }
+        // A replace writes every column, and these ones are NOT NULL
+        if (userDTO.getEmail() == null || userDTO.getFirstName() == null || userDTO.getLastName() == null) {
+            return Mono.error(new BadRequestException("Email, first name and last name are required"));
+        }
+        User user = User.builder()
+                .id(id)
+                .firstName(userDTO.getFirstName())
+                .lastName(userDTO.getLastName())
+                .email(userDTO.getEmail())
+                .birthDate(userDTO.getBirthDate())
+                .phone(userDTO.getPhone())
+                .address(userDTO.getAddress())
+                .build();
+        return userRepository.replace(user)
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new UserNotFoundException("User not found with id: " + id))
+                        : Mono.empty());
+    }
+
+    @Override
+    public Mono<UserDTO> patchUser(UserUpdateDTO userDTO) {
+        Long id = userDTO.getId();
+        if (userDTO.getBirthDate() != null && !isUserAdult(userDTO.getBirthDate())) {
+            return Mono.error(new BadRequestException("Invalid birth date. You should have 18 years old"));
+        }
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found with id: " + id)))
+                .flatMap(user -> {
+                    if (userDTO.getVersion() != null && !userDTO.getVersion().equals(user.getVersion())) {
+                        return Mono.error(new ObjectOptimisticLockingFailureException(User.class, id));
+                    }
+                    Map<String, Object> changes = changedColumns(userDTO, user);
+                    if (changes.isEmpty()) {
+                        return Mono.just(user);
+                    }
+                    return userRepository.updateColumns(id, user.getVersion(), changes)
+                            .switchIfEmpty(Mono.error(() -> new ObjectOptimisticLockingFailureException(User.class, id)))
+                            .map(version -> {
+                                applyChanges(userDTO, user);
+                                user.setVersion(version);
+                                return user;
+                            });
+                })
+                .map(userDTOMapper);
+    }
+
+    private Map<String, Object> changedColumns(UserUpdateDTO userDTO, User user) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "first_name", userDTO.getFirstName(), user.getFirstName());
+        putIfChanged(changes, "last_name", userDTO.getLastName(), user.getLastName());
+        putIfChanged(changes, "email", userDTO.getEmail(), user.getEmail());
+        putIfChanged(changes, "birth_date", userDTO.getBirthDate(), user.getBirthDate());
+        putIfChanged(changes, "phone", userDTO.getPhone(), user.getPhone());
+        putIfChanged(changes, "address", userDTO.getAddress(), user.getAddress());
+        return changes;
+    }
+
+    private void putIfChanged(Map<String, Object> changes, String column, Object value, Object current) {
+        if (value != null && !value.equals(current)) {
+            changes.put(column, value);
+        }
+    }
+
+    private void applyChanges(UserUpdateDTO userDTO, User user) {
+        if (userDTO.getFirstName() != null) user.setFirstName(userDTO.getFirstName());
+        if (userDTO.getLastName() != null) user.setLastName(userDTO.getLastName());
+        if (userDTO.getEmail() != null) user.setEmail(userDTO.getEmail());
+        if (userDTO.getBirthDate() != null) user.setBirthDate(userDTO.getBirthDate());
+        if (userDTO.getPhone() != null) user.setPhone(userDTO.getPhone());
+        if (userDTO.getAddress() != null) user.setAddress(userDTO.getAddress());
+    }
+
+    @Override
+    public Mono<Void> deleteUser(String userIdStr) {
+        return Mono.fromCallable(() -> parseToLong(userIdStr))
+                .flatMap(id -> userRepository.deleteById(id)
+                        .flatMap(deleted -> deleted == 0
+                                ? Mono.error(new UserNotFoundException("User is not found with id: " + id))
+                                : Mono.empty()));
+    }
+
+    @Override
+    public Mono<UserBulkDeleteResultDTO> deleteUsers(List<Long> userIds) {
+        if (userIds.stream().anyMatch(Objects::isNull)) {
+            return Mono.error(new BadRequestException("User id can not be null"));
+        }
+        List<Long> requested = userIds.stream().distinct().toList();
+        if (requested.isEmpty() || requested.size() > maxBatchSize) {
+            return Mono.error(new BadRequestException("Number of ids must be between 1 and " + maxBatchSize));
+        }
+        return userRepository.deleteAllByIdReturningIds(requested)
+                .collect(HashSet<Long>::new, Set::add)
+                .map(deleted -> UserBulkDeleteResultDTO.builder()
+                        .deleted(requested.stream().filter(deleted::contains).toList())
+                        .missing(requested.stream().filter(id -> !deleted.contains(id)).toList())
+                        .build());
+    }
+
+    @Override
+    public Flux<UserDTO> searchByBirthDateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return Flux.error(new BadRequestException("Invalid range for birth dates."));
+        }
+        return userRepository.findAllByBirthDateBetween(from, to).map(userDTOMapper);
+    }
+
+    private boolean isUserAdult(LocalDate birthDate) {
+        LocalDate adultAge = LocalDate.now().minusYears(minUserAge);
+        return birthDate.isBefore(adultAge);
+    }
+
+    private Long parseToLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Incorrect format for the number." + value);
+        }
+    }
+}
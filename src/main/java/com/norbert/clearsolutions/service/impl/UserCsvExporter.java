@@ -0,0 +1,84 @@
+package com.norbert.clearsolutions.service.impl;
+
+import com.norbert.clearsolutions.datasource.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports users as CSV with {@code COPY (SELECT ...) TO STDOUT}. The driver hands the bytes
+ * PostgreSQL sends straight to the output stream, so no row is ever mapped to a Java object and
+ * memory use does not depend on the number of rows. The header uses the column names that
+ * {@link UserCsvImporter} reads, so an export can be imported again. Rows are not sorted,
+ * which lets PostgreSQL scan the table or the birth date index without a sort. When users are
+ * sharded, the shards are copied one after another under a single header.
+ */
+@Profile("!reactive")
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCsvExporter {
+    private static final String COPY_USERS = """
+            COPY (SELECT id, email, first_name AS "firstName", last_name AS "lastName", birth_date AS "birthDate", address, phone
+                  FROM users%s)
+            TO STDOUT WITH (FORMAT csv%s)""";
+    private static final String HEADER = ", HEADER";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<Shards> shards;
+
+    /**
+     * Writes the users born between {@code from} and {@code to}, both optional and inclusive.
+     *
+     * @return number of exported users
+     */
+    public long exportUsers(LocalDate from, LocalDate to, OutputStream out) {
+        String filter = birthDateFilter(from, to);
+        Shards sharded = shards.getIfAvailable();
+        long rows = 0;
+        if (sharded == null) {
+            rows = copyOut(COPY_USERS.formatted(filter, HEADER), out);
+        } else {
+            for (int shard = 0; shard < sharded.count(); shard++) {
+                String sql = COPY_USERS.formatted(filter, shard == 0 ? HEADER : "");
+                rows += sharded.on(shard, true, () -> copyOut(sql, out));
+            }
+        }
+        log.debug("Exported {} users to CSV", rows);
+        return rows;
+    }
+
+    private long copyOut(String sql, OutputStream out) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // COPY does not take bind parameters; ISO dates printed by LocalDate are safe to inline
+    private static String birthDateFilter(LocalDate from, LocalDate to) {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("birth_date >= DATE '" + from + "'");
+        }
+        if (to != null) {
+            conditions.add("birth_date <= DATE '" + to + "'");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,461 @@
+package com.norbert.clearsolutions.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.norbert.clearsolutions.cache.UserTableVersion;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserImportRejectionDTO;
+import com.norbert.clearsolutions.dto.UserImportResultDTO;
+import com.norbert.clearsolutions.exception.BadRequestException;
+import com.norbert.clearsolutions.exception.UserUniqueConstraint;
+import com.norbert.clearsolutions.index.BirthDateHistogram;
+import com.norbert.clearsolutions.index.UserNameIndex;
+import com.norbert.clearsolutions.index.UserUniquenessFilter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Imports users from a CSV file with a header row. A reader thread cuts the file into chunks, the
+ * chunks are checked in parallel with the same rules as {@code POST /user}, and the calling thread
+ * streams them in order into a temporary staging table with {@code COPY ... FROM STDIN}. Only a
+ * few chunks are in flight at any time, so memory use does not grow with the file. Email and phone
+ * clashes, with existing users and within the file, are then resolved in SQL, and the remaining
+ * rows are inserted in the same transaction. Rejected rows are read back from the staging table
+ * after commit.
+ */
+@Profile("!reactive")
+@Slf4j
+@Component
+public class UserCsvImporter {
+    static final List<String> REQUIRED_COLUMNS = List.of("email", "firstName", "lastName", "birthDate");
+
+    private static final ObjectReader ROW_READER = new CsvMapper()
+            .enable(CsvParser.Feature.IGNORE_TRAILING_UNMAPPABLE)
+            .readerForMapOf(String.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private static final String CREATE_STAGING_TABLE = """
+            CREATE TEMPORARY TABLE user_import (
+                csv_row    BIGINT NOT NULL,
+                email      TEXT,
+                first_name TEXT,
+                last_name  TEXT,
+                birth_date DATE,
+                address    TEXT,
+                phone      TEXT,
+                error      TEXT
+            )""";
+
+    private static final String COPY_STAGING_TABLE =
+            "COPY user_import (csv_row, email, first_name, last_name, birth_date, address, phone, error) FROM STDIN WITH (FORMAT csv)";
+
+    // Column limits of the users table, see V1__UserTableCreation
+    private static final String REJECT_TOO_LONG = """
+            UPDATE user_import SET error = ?
+            WHERE error IS NULL
+              AND (length(email) > 319 OR length(first_name) > 30 OR length(last_name) > 30 OR length(address) > 60)""";
+
+    private static final String REJECT_EXISTING = """
+            UPDATE user_import s SET error = ?
+            WHERE s.error IS NULL AND s.%1$s IS NOT NULL
+              AND EXISTS (SELECT 1 FROM users u WHERE u.%1$s = s.%1$s)""";
+
+    // Keeps the first row of the file with a given value
+    private static final String REJECT_REPEATED = """
+            UPDATE user_import s SET error = ?
+            FROM (SELECT csv_row, row_number() OVER (PARTITION BY %1$s ORDER BY csv_row) AS occurrence
+                  FROM user_import WHERE error IS NULL AND %1$s IS NOT NULL) d
+            WHERE s.csv_row = d.csv_row AND d.occurrence > 1""";
+
+    // Rows that lose a race with a concurrent insert of the same email or phone are skipped and then rejected
+    private static final String INSERT_VALID = """
+            WITH inserted AS (
+                INSERT INTO users (email, first_name, last_name, birth_date, address, phone)
+                SELECT email, first_name, last_name, birth_date, address, phone
+                FROM user_import WHERE error IS NULL
+                ORDER BY csv_row
+                ON CONFLICT DO NOTHING
+                RETURNING email
+            )
+            UPDATE user_import s SET error = ?
+            WHERE s.error IS NULL AND NOT EXISTS (SELECT 1 FROM inserted i WHERE i.email = s.email)""";
+
+    private static final CompletableFuture<List<StagedRow>> END_OF_FILE = CompletableFuture.completedFuture(List.of());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final BirthDateHistogram birthDateHistogram;
+    private final UserNameIndex userNameIndex;
+    private final UserTableVersion userTableVersion;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int minUserAge;
+
+    public UserCsvImporter(JdbcTemplate jdbcTemplate,
+                           Validator validator,
+                           UserUniquenessFilter uniquenessFilter,
+                           BirthDateHistogram birthDateHistogram,
+                           UserNameIndex userNameIndex,
+                           UserTableVersion userTableVersion,
+                           @Value("${user-import.chunk-size}") int chunkSize,
+                           @Value("${user-import.parallelism}") int parallelism,
+                           @Value("${constants.min-user-age}") int minUserAge) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.uniquenessFilter = uniquenessFilter;
+        this.birthDateHistogram = birthDateHistogram;
+        this.userNameIndex = userNameIndex;
+        this.userTableVersion = userTableVersion;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.minUserAge = minUserAge;
+    }
+
+    /**
+     * Imports every valid row of the file and passes each rejected row, in file order, to
+     * {@code rejections}. The rows are committed before the first rejection is reported.
+     */
+    public UserImportResultDTO importUsers(InputStream csv, Consumer<? super UserImportRejectionDTO> rejections) {
+        try (MappingIterator<Map<String, String>> rows = ROW_READER.readValues(csv)) {
+            checkColumns(rows);
+            return jdbcTemplate.execute((ConnectionCallback<UserImportResultDTO>) connection ->
+                    importRows(connection, rows, rejections));
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed CSV: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkColumns(MappingIterator<Map<String, String>> rows) throws IOException {
+        rows.hasNextValue();
+        Set<String> columns = new HashSet<>();
+        ((CsvSchema) rows.getParserSchema()).forEach(column -> columns.add(column.getName()));
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.contains(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new BadRequestException("Missing CSV columns: " + String.join(", ", missing));
+        }
+    }
+
+    private UserImportResultDTO importRows(Connection connection, MappingIterator<Map<String, String>> rows,
+                                           Consumer<? super UserImportRejectionDTO> rejections) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            execute(connection, "DROP TABLE IF EXISTS user_import");
+            execute(connection, CREATE_STAGING_TABLE);
+            long staged = stage(connection, rows);
+            execute(connection, "ANALYZE user_import");
+            resolveConflicts(connection);
+            Map<LocalDate, Long> importedBirthDates = countImportedBirthDates(connection);
+            connection.commit();
+            importedBirthDates.forEach(birthDateHistogram::add);
+            indexImportedNames(connection);
+            userTableVersion.bump();
+
+            long rejected = reportRejections(connection, rejections);
+            log.info("Imported {} users from CSV, rejected {} rows", staged - rejected, rejected);
+            return UserImportResultDTO.builder()
+                    .imported(staged - rejected)
+                    .rejected(rejected)
+                    .build();
+        } catch (SQLException | RuntimeException | Error e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            dropStagingTable(connection, autoCommit);
+        }
+    }
+
+    private void dropStagingTable(Connection connection, boolean autoCommit) {
+        try {
+            execute(connection, "DROP TABLE IF EXISTS user_import");
+            connection.commit();
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            log.warn("Could not drop the user import staging table", e);
+        }
+    }
+
+    /**
+     * Reads the file on a separate thread, validates chunks on {@code parallelism} threads and
+     * copies them into the staging table in file order on the calling thread.
+     *
+     * @return number of data rows in the file
+     */
+    private long stage(Connection connection, MappingIterator<Map<String, String>> rows) throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism + 1, importThreads());
+        BlockingQueue<CompletableFuture<List<StagedRow>>> chunks = new ArrayBlockingQueue<>(parallelism * 2);
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING_TABLE);
+        try {
+            executor.execute(() -> read(rows, chunks, executor));
+            long staged = 0;
+            StringBuilder buffer = new StringBuilder(chunkSize * 120);
+            for (CompletableFuture<List<StagedRow>> chunk = take(chunks); chunk != END_OF_FILE; chunk = take(chunks)) {
+                for (StagedRow row : join(chunk)) {
+                    row.appendCsv(buffer);
+                    staged++;
+                }
+                byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+                buffer.setLength(0);
+            }
+            copy.endCopy();
+            return staged;
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private void read(MappingIterator<Map<String, String>> rows, BlockingQueue<CompletableFuture<List<StagedRow>>> chunks,
+                      ExecutorService executor) {
+        long row = 0;
+        try {
+            List<Map<String, String>> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNextValue()) {
+                chunk.add(rows.nextValue());
+                row++;
+                if (chunk.size() == chunkSize) {
+                    chunks.put(validateAsync(row - chunk.size() + 1, chunk, executor));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.put(validateAsync(row - chunk.size() + 1, chunk, executor));
+            }
+            chunks.put(END_OF_FILE);
+        } catch (InterruptedException e) {
+            // The writer gave up and nobody is waiting for more rows
+            Thread.currentThread().interrupt();
+        } catch (JsonProcessingException e) {
+            offer(chunks, new BadRequestException("Malformed CSV at row " + (row + 1) + ": " + e.getOriginalMessage()));
+        } catch (RuntimeJsonMappingException e) {
+            String message = e.getCause() instanceof JsonProcessingException cause ? cause.getOriginalMessage() : e.getMessage();
+            offer(chunks, new BadRequestException("Malformed CSV at row " + (row + 1) + ": " + message));
+        } catch (IOException e) {
+            offer(chunks, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            offer(chunks, e);
+        }
+    }
+
+    private void offer(BlockingQueue<CompletableFuture<List<StagedRow>>> chunks, RuntimeException failure) {
+        try {
+            chunks.put(CompletableFuture.failedFuture(failure));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<List<StagedRow>> validateAsync(long firstRow, List<Map<String, String>> chunk, ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<StagedRow> staged = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                staged.add(validate(firstRow + i, chunk.get(i)));
+            }
+            return staged;
+        }, executor);
+    }
+
+    StagedRow validate(long row, Map<String, String> fields) {
+        LocalDate birthDate;
+        try {
+            birthDate = emptyToNull(fields.get("birthDate")) == null ? null : LocalDate.parse(fields.get("birthDate"));
+        } catch (DateTimeParseException e) {
+            return StagedRow.rejected(row, "Invalid birth date format. Expected yyyy-MM-dd");
+        }
+        UserDTO user = UserDTO.builder()
+                .email(fields.get("email"))
+                .firstName(fields.get("firstName"))
+                .lastName(fields.get("lastName"))
+                .birthDate(birthDate)
+                .address(emptyToNull(fields.get("address")))
+                .phone(emptyToNull(fields.get("phone")))
+                .build();
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            return StagedRow.rejected(row, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (!birthDate.isBefore(LocalDate.now().minusYears(minUserAge))) {
+            return StagedRow.rejected(row, "Invalid birth date. You should have 18 years old");
+        }
+        // Adding values that end up rejected only costs a fallback query later
+        uniquenessFilter.add(user.getEmail(), user.getPhone());
+        return new StagedRow(row, user, null);
+    }
+
+    private void resolveConflicts(Connection connection) throws SQLException {
+        update(connection, REJECT_TOO_LONG, "A value is longer than the database allows");
+        update(connection, REJECT_EXISTING.formatted("email"), UserUniqueConstraint.EMAIL.getMessage());
+        update(connection, REJECT_REPEATED.formatted("email"), UserUniqueConstraint.EMAIL.getMessage());
+        update(connection, REJECT_EXISTING.formatted("phone"), UserUniqueConstraint.PHONE.getMessage());
+        update(connection, REJECT_REPEATED.formatted("phone"), UserUniqueConstraint.PHONE.getMessage());
+        update(connection, INSERT_VALID, "The email or phone was taken during the import");
+    }
+
+    private Map<LocalDate, Long> countImportedBirthDates(Connection connection) throws SQLException {
+        Map<LocalDate, Long> counts = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT birth_date, count(*) FROM user_import WHERE error IS NULL GROUP BY birth_date")) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getObject(1, LocalDate.class), resultSet.getLong(2));
+            }
+        }
+        return counts;
+    }
+
+    private void indexImportedNames(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT u.id, u.email, u.first_name, u.last_name
+                FROM user_import s JOIN users u ON u.email = s.email
+                WHERE s.error IS NULL""")) {
+            statement.setFetchSize(chunkSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    userNameIndex.add(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4));
+                }
+            }
+        }
+    }
+
+    private long reportRejections(Connection connection, Consumer<? super UserImportRejectionDTO> rejections) throws SQLException {
+        long rejected = 0;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT csv_row, error FROM user_import WHERE error IS NOT NULL ORDER BY csv_row")) {
+            statement.setFetchSize(chunkSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rejections.accept(new UserImportRejectionDTO(resultSet.getLong(1), resultSet.getString(2)));
+                    rejected++;
+                }
+            }
+        }
+        return rejected;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void update(Connection connection, String sql, String error) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, error);
+            statement.executeUpdate();
+        }
+    }
+
+    private static CompletableFuture<List<StagedRow>> take(BlockingQueue<CompletableFuture<List<StagedRow>>> chunks) {
+        try {
+            return chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing users", e);
+        }
+    }
+
+    private static List<StagedRow> join(CompletableFuture<List<StagedRow>> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static ThreadFactory importThreads() {
+        return Thread.ofPlatform().name("user-import-", 0).daemon().factory();
+    }
+
+    /**
+     * A row of the file on its way to the staging table, either a valid user or the reason it was rejected.
+     */
+    record StagedRow(long row, UserDTO user, String error) {
+        static StagedRow rejected(long row, String error) {
+            return new StagedRow(row, null, error);
+        }
+
+        void appendCsv(StringBuilder csv) {
+            csv.append(row);
+            if (user == null) {
+                csv.append(",,,,,,,");
+                appendField(csv, error);
+            } else {
+                csv.append(',');
+                appendField(csv, user.getEmail());
+                csv.append(',');
+                appendField(csv, user.getFirstName());
+                csv.append(',');
+                appendField(csv, user.getLastName());
+                csv.append(',').append(user.getBirthDate()).append(',');
+                appendField(csv, user.getAddress());
+                csv.append(',');
+                appendField(csv, user.getPhone());
+                csv.append(',');
+            }
+            csv.append('\n');
+        }
+
+        // An unquoted empty field is NULL in COPY's csv format, a quoted one is an empty string
+        private static void appendField(StringBuilder csv, String value) {
+            if (value != null) {
+                csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+    }
+}
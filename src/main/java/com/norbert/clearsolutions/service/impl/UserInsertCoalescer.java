@@ -0,0 +1,307 @@
+package com.norbert.clearsolutions.service.impl;
+
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.exception.UserUniqueConstraint;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Group commit for {@code createUser}. When enabled, single-user inserts that arrive within
+ * {@code user-create.coalescing.max-delay} of the first one, up to {@code max-batch-size}, are
+ * written by one {@code INSERT ... SELECT FROM unnest(...)} in one transaction, so concurrent
+ * creations share a commit instead of paying one each. One thread writes the batches, and the next
+ * batch gathers while it waits for the commit.
+ * <p>
+ * Every caller gets its own result: rows that clash with an existing user or with an earlier row of
+ * the same batch are skipped by {@code ON CONFLICT DO NOTHING} and reported to their caller as a
+ * violation of {@code users_email_key} or {@code users_phone_key}, which
+ * {@code GlobalExceptionHandler} turns into the usual message. When the batch statement fails for
+ * any other reason, its callers are retried one by one, so a row the database rejects only fails its
+ * own caller.
+ * <p>
+ * Batches are written on the coalescer's own thread, so their statements are not counted in the
+ * per-request SQL statistics of the callers.
+ */
+@Profile("!reactive")
+@Slf4j
+@Component
+public class UserInsertCoalescer implements MeterBinder, InitializingBean, DisposableBean {
+    private static final String INSERT_BATCH = """
+            INSERT INTO users (email, first_name, last_name, birth_date, address, phone)
+            SELECT email, first_name, last_name, birth_date, address, phone
+            FROM unnest(?::text[], ?::text[], ?::text[], ?::date[], ?::text[], ?::text[]) WITH ORDINALITY
+                 AS batch(email, first_name, last_name, birth_date, address, phone, position)
+            ORDER BY position
+            ON CONFLICT DO NOTHING
+            RETURNING id, email, phone""";
+    private static final String SELECT_TAKEN_EMAILS = "SELECT email FROM users WHERE email = ANY(?::text[])";
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    private volatile boolean running;
+    private Thread writer;
+
+    public UserInsertCoalescer(JdbcTemplate jdbcTemplate,
+                               @Value("${user-create.coalescing.enabled}") boolean enabled,
+                               @Value("${user-create.coalescing.max-batch-size}") int maxBatchSize,
+                               @Value("${user-create.coalescing.max-delay}") Duration maxDelay) {
+        if (maxBatchSize < 1 || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Coalescing max batch size must be positive and max delay must not be negative");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            running = true;
+            writer = Thread.ofPlatform().name("user-insert-coalescer").daemon().start(this::writeBatches);
+            log.info("Coalescing user inserts into batches of up to {} within {} ms", maxBatchSize, maxDelayNanos / 1_000_000.0);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join();
+        failPending(new IllegalStateException("User insert coalescing has stopped"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the user for the next batch and waits until that batch is committed.
+     *
+     * @return id of the inserted user
+     * @throws DuplicateKeyException if the email or phone is already taken
+     */
+    public Long insert(User user) {
+        PendingInsert pending = new PendingInsert(user, new CompletableFuture<>());
+        queue.add(pending);
+        // The writer may have stopped before the user was queued; whoever removes it completes it
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("User insert coalescing is not running");
+        }
+        try {
+            return pending.id().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void writeBatches() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingInsert first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                gather(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                batch.forEach(pending -> pending.id().completeExceptionally(e));
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void gather(List<PendingInsert> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() == maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingInsert next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingInsert> batch) {
+        batches.increment();
+        inserts.add(batch.size());
+        try {
+            insertAndReportConflicts(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).id().completeExceptionally(e);
+                return;
+            }
+            log.warn("Failed to insert a batch of {} users, inserting them one by one", batch.size(), e);
+            for (PendingInsert pending : batch) {
+                if (!pending.id().isDone()) {
+                    insertAlone(pending);
+                }
+            }
+        }
+    }
+
+    private void insertAlone(PendingInsert pending) {
+        try {
+            insertAndReportConflicts(List.of(pending));
+        } catch (RuntimeException e) {
+            pending.id().completeExceptionally(e);
+        }
+    }
+
+    private void insertAndReportConflicts(List<PendingInsert> batch) {
+        List<PendingInsert> skipped = insertBatch(batch);
+        if (!skipped.isEmpty()) {
+            reportConflicts(skipped);
+        }
+    }
+
+    /**
+     * Inserts the batch in one statement, completes the callers whose rows were inserted and
+     * returns the others. Rows are inserted in arrival order, so the first of several callers
+     * with the same email or phone wins.
+     */
+    private List<PendingInsert> insertBatch(List<PendingInsert> batch) {
+        Map<String, Deque<PendingInsert>> byEmail = new HashMap<>();
+        for (PendingInsert pending : batch) {
+            byEmail.computeIfAbsent(pending.user().getEmail(), email -> new ArrayDeque<>()).add(pending);
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_BATCH)) {
+                statement.setArray(1, textArray(connection, batch, User::getEmail));
+                statement.setArray(2, textArray(connection, batch, User::getFirstName));
+                statement.setArray(3, textArray(connection, batch, User::getLastName));
+                statement.setArray(4, connection.createArrayOf("date", batch.stream()
+                        .map(pending -> Date.valueOf(pending.user().getBirthDate()))
+                        .toArray()));
+                statement.setArray(5, textArray(connection, batch, User::getAddress));
+                statement.setArray(6, textArray(connection, batch, User::getPhone));
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        // Inserted emails are unique, so the row belongs to the first caller with its email and phone
+                        Deque<PendingInsert> candidates = byEmail.get(rows.getString("email"));
+                        String phone = rows.getString("phone");
+                        for (Iterator<PendingInsert> it = candidates.iterator(); it.hasNext(); ) {
+                            PendingInsert pending = it.next();
+                            if (Objects.equals(pending.user().getPhone(), phone)) {
+                                it.remove();
+                                pending.id().complete(rows.getLong("id"));
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+        return batch.stream().filter(pending -> !pending.id().isDone()).toList();
+    }
+
+    // A skipped row clashed on its email if that email is now taken, otherwise on its phone
+    private void reportConflicts(List<PendingInsert> skipped) {
+        Set<String> takenEmails = new HashSet<>(jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_TAKEN_EMAILS)) {
+                statement.setArray(1, textArray(connection, skipped, User::getEmail));
+                List<String> emails = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        emails.add(rows.getString(1));
+                    }
+                }
+                return emails;
+            }
+        }));
+        for (PendingInsert pending : skipped) {
+            UserUniqueConstraint constraint = takenEmails.contains(pending.user().getEmail())
+                    ? UserUniqueConstraint.EMAIL
+                    : UserUniqueConstraint.PHONE;
+            pending.id().completeExceptionally(new DuplicateKeyException(
+                    "Batched insert skipped a row violating unique constraint \"" + constraint.getConstraintName() + "\""));
+        }
+    }
+
+    private void failPending(RuntimeException exception) {
+        List<PendingInsert> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(insert -> insert.id().completeExceptionally(exception));
+    }
+
+    private static Array textArray(Connection connection, List<PendingInsert> batch,
+                                            Function<User, String> column) throws SQLException {
+        return connection.createArrayOf("text", batch.stream().map(pending -> column.apply(pending.user())).toArray());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.create.coalesced.batches", this, UserInsertCoalescer::batchCount)
+                .description("Batches written by the createUser write coalescer")
+                .register(registry);
+        FunctionCounter.builder("user.create.coalesced.inserts", this, UserInsertCoalescer::insertCount)
+                .description("Users submitted to the createUser write coalescer")
+                .register(registry);
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long insertCount() {
+        return inserts.sum();
+    }
+
+    private record PendingInsert(User user, CompletableFuture<Long> id) {
+    }
+}
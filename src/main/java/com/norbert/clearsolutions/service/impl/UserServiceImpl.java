@@ -1,43 +1,123 @@
 package com.norbert.clearsolutions.service.impl;
 
+import com.norbert.clearsolutions.cache.UserCache;
+import com.norbert.clearsolutions.cache.UserTableVersion;
+import com.norbert.clearsolutions.datasource.ReplicaRouting;
+import com.norbert.clearsolutions.dto.BirthDateBucketDTO;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.dto.UserBatchResultDTO;
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
 import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserImportRejectionDTO;
+import com.norbert.clearsolutions.dto.UserImportResultDTO;
+import com.norbert.clearsolutions.dto.UserPageDTO;
 import com.norbert.clearsolutions.dto.UserUpdateDTO;
 import com.norbert.clearsolutions.entity.User;
 import com.norbert.clearsolutions.exception.BadRequestException;
 import com.norbert.clearsolutions.exception.UserNotFoundException;
+import com.norbert.clearsolutions.exception.UserUniqueConstraint;
+import com.norbert.clearsolutions.index.BirthDateHistogram;
+import com.norbert.clearsolutions.index.UserNameIndex;
+import com.norbert.clearsolutions.index.UserUniquenessFilter;
 import com.norbert.clearsolutions.mapper.UserDTOMapper;
-import com.norbert.clearsolutions.repository.UserRepository;
+import com.norbert.clearsolutions.repository.DeletedUser;
+import com.norbert.clearsolutions.repository.UserStore;
 import com.norbert.clearsolutions.service.api.IUserService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Profile("!reactive")
 @Service
+@Timed(value = "user.service", description = "Time spent in IUserService methods")
 @RequiredArgsConstructor
 public class UserServiceImpl implements IUserService {
-    private final UserRepository userRepository;
+    private final UserStore userRepository;
     private final UserDTOMapper userDTOMapper;
+    private final Validator validator;
+    private final UserCache userCache;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final BirthDateHistogram birthDateHistogram;
+    private final UserNameIndex userNameIndex;
+    private final UserTableVersion userTableVersion;
+    private final UserCsvImporter userCsvImporter;
+    private final UserCsvExporter userCsvExporter;
+    private final UserInsertCoalescer userInsertCoalescer;
 
     @Value(value = "${constants.min-user-age}")
     private Integer minUserAge;
 
+    @Value(value = "${constants.max-batch-size}")
+    private Integer maxBatchSize;
+
+    @Value(value = "${constants.max-page-size}")
+    private Integer maxPageSize;
+
+    @Value(value = "${constants.max-autocomplete-size}")
+    private Integer maxAutocompleteSize;
+
+    @Value(value = "${datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value(value = "${datasource.replicas.read-your-writes-window}")
+    private Duration readYourWritesWindow;
+
+    @Value(value = "${datasource.shards.urls}")
+    private List<String> shardUrls;
+
+
+    @Override
+    public UserDTO getUser(String userIdStr) {
+        Long id = parseToLong(userIdStr);
+        // Cached values must not come from a replica that has not applied the last write yet
+        return userCache.get(id, key -> ReplicaRouting.onPrimary(() -> userRepository.findUserDTOById(key))
+                .orElseThrow(() -> new UserNotFoundException("User is not found with id: " + key)));
+    }
 
     @Override
     public Long createUser(UserDTO userDTO) {
         if(!isUserAdult(userDTO.getBirthDate())){
             throw new BadRequestException("Invalid birth date. You should have 18 years old");
         }
-        if (existsByEmail(userDTO.getEmail())) {
-            throw new BadRequestException("The email is already taken");
-        }
-        if (userDTO.getPhone() != null && existsByPhone(userDTO.getPhone())) {
-            throw new BadRequestException("The phone is already taken");
-        }
-        User user = User.builder()
+        // Email and phone uniqueness is enforced by the users_email_key and users_phone_key
+        // constraints; a violation is reported by GlobalExceptionHandler.
+        uniquenessFilter.add(userDTO.getEmail(), userDTO.getPhone());
+        Long id = userInsertCoalescer.isEnabled()
+                ? userInsertCoalescer.insert(toUser(userDTO))
+                : userRepository.saveAndFlush(toUser(userDTO)).getId();
+        birthDateHistogram.add(userDTO.getBirthDate());
+        userNameIndex.add(id, userDTO.getEmail(), userDTO.getFirstName(), userDTO.getLastName());
+        userTableVersion.bump();
+        return id;
+    }
+
+    private User toUser(UserDTO userDTO) {
+        return User.builder()
                 .firstName(userDTO.getFirstName())
                 .lastName(userDTO.getLastName())
                 .email(userDTO.getEmail())
@@ -45,7 +125,90 @@ public class UserServiceImpl implements IUserService {
                 .phone(userDTO.getPhone())
                 .address(userDTO.getAddress())
                 .build();
-        return userRepository.save(user).getId();
+    }
+
+    @Override
+    @Transactional
+    public List<UserBatchResultDTO> createUsers(List<UserDTO> userDTOs) {
+        if (userDTOs.size() > maxBatchSize) {
+            throw new BadRequestException("Batch is too large. Maximum size is " + maxBatchSize);
+        }
+        Set<String> takenEmails = findTaken(collect(userDTOs, UserDTO::getEmail, uniquenessFilter::mightContainEmail),
+                userRepository::findExistingEmails);
+        Set<String> takenPhones = findTaken(collect(userDTOs, UserDTO::getPhone, uniquenessFilter::mightContainPhone),
+                userRepository::findExistingPhones);
+
+        List<UserBatchResultDTO> results = new ArrayList<>(userDTOs.size());
+        List<User> users = new ArrayList<>(userDTOs.size());
+        List<UserBatchResultDTO> created = new ArrayList<>(userDTOs.size());
+        for (int index = 0; index < userDTOs.size(); index++) {
+            UserDTO userDTO = userDTOs.get(index);
+            UserBatchResultDTO result = UserBatchResultDTO.builder().index(index).build();
+            String error = validateBatchItem(userDTO, takenEmails, takenPhones);
+            if (error != null) {
+                result.setError(error);
+            } else {
+                uniquenessFilter.add(userDTO.getEmail(), userDTO.getPhone());
+                users.add(toUser(userDTO));
+                created.add(result);
+            }
+            results.add(result);
+        }
+
+        List<User> saved = userRepository.saveAll(users);
+        for (int i = 0; i < saved.size(); i++) {
+            User user = saved.get(i);
+            created.get(i).setId(user.getId());
+            birthDateHistogram.add(user.getBirthDate());
+            userNameIndex.add(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName());
+        }
+        if (!saved.isEmpty()) {
+            userTableVersion.bump();
+        }
+        return results;
+    }
+
+    // Only values the uniqueness filter cannot rule out are looked up in the database.
+    private Set<String> collect(List<UserDTO> userDTOs, Function<UserDTO, String> field, Predicate<String> mightExist) {
+        return userDTOs.stream()
+                .filter(Objects::nonNull)
+                .map(field)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(mightExist)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> findTaken(Set<String> values, Function<Set<String>, List<String>> query) {
+        return values.isEmpty() ? new HashSet<>() : new HashSet<>(query.apply(values));
+    }
+
+    // Records the email and phone of an accepted item so later duplicates in the same batch are rejected.
+    private String validateBatchItem(UserDTO userDTO, Set<String> takenEmails, Set<String> takenPhones) {
+        if (userDTO == null) {
+            return "User can not be null";
+        }
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!isUserAdult(userDTO.getBirthDate())) {
+            return "Invalid birth date. You should have 18 years old";
+        }
+        if (takenEmails.contains(userDTO.getEmail())) {
+            return UserUniqueConstraint.EMAIL.getMessage();
+        }
+        if (userDTO.getPhone() != null && takenPhones.contains(userDTO.getPhone())) {
+            return UserUniqueConstraint.PHONE.getMessage();
+        }
+        takenEmails.add(userDTO.getEmail());
+        if (userDTO.getPhone() != null) {
+            takenPhones.add(userDTO.getPhone());
+        }
+        return null;
     }
 
     private boolean isUserAdult(LocalDate birthDate) {
@@ -55,11 +218,11 @@ public class UserServiceImpl implements IUserService {
     }
 
     private boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return uniquenessFilter.mightContainEmail(email) && userRepository.existsByEmail(email);
     }
 
     private boolean existsByPhone(String phone) {
-        return userRepository.existsByPhone(phone);
+        return uniquenessFilter.mightContainPhone(phone) && userRepository.existsByPhone(phone);
     }
 
 
@@ -75,6 +238,10 @@ public class UserServiceImpl implements IUserService {
 
         validateUserDetails(userDTO, user);
 
+        LocalDate oldBirthDate = user.getBirthDate();
+        String oldEmail = user.getEmail();
+        String oldFirstName = user.getFirstName();
+        String oldLastName = user.getLastName();
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
         user.setEmail(userDTO.getEmail());
@@ -82,7 +249,55 @@ public class UserServiceImpl implements IUserService {
         user.setPhone(userDTO.getPhone());
         user.setAddress(userDTO.getAddress());
 
+        uniquenessFilter.add(user.getEmail(), user.getPhone());
         userRepository.save(user);
+        birthDateHistogram.move(oldBirthDate, user.getBirthDate());
+        userNameIndex.remove(id, oldEmail, oldFirstName, oldLastName);
+        userNameIndex.add(id, user.getEmail(), user.getFirstName(), user.getLastName());
+        userTableVersion.bump();
+        userCache.invalidate(id);
+    }
+
+    @Override
+    @Transactional
+    public UserDTO patchUser(UserUpdateDTO userDTO) {
+        Long id = userDTO.getId();
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+        if (userDTO.getVersion() != null && !userDTO.getVersion().equals(user.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(User.class, id);
+        }
+        if (userDTO.getBirthDate() != null && !isUserAdult(userDTO.getBirthDate())) {
+            throw new BadRequestException("Invalid birth date. You should have 18 years old");
+        }
+
+        LocalDate oldBirthDate = user.getBirthDate();
+        String oldEmail = user.getEmail();
+        String oldFirstName = user.getFirstName();
+        String oldLastName = user.getLastName();
+        // Only the supplied fields are touched; with @DynamicUpdate the UPDATE lists just the
+        // changed columns, guarded by the version, and email/phone clashes hit the unique constraints.
+        applyIfPresent(userDTO.getFirstName(), user::setFirstName);
+        applyIfPresent(userDTO.getLastName(), user::setLastName);
+        applyIfPresent(userDTO.getEmail(), user::setEmail);
+        applyIfPresent(userDTO.getBirthDate(), user::setBirthDate);
+        applyIfPresent(userDTO.getPhone(), user::setPhone);
+        applyIfPresent(userDTO.getAddress(), user::setAddress);
+
+        uniquenessFilter.add(userDTO.getEmail(), userDTO.getPhone());
+        UserDTO patched = userDTOMapper.apply(userRepository.saveAndFlush(user));
+        birthDateHistogram.move(oldBirthDate, user.getBirthDate());
+        userNameIndex.remove(id, oldEmail, oldFirstName, oldLastName);
+        userNameIndex.add(id, user.getEmail(), user.getFirstName(), user.getLastName());
+        userTableVersion.bump();
+        userCache.invalidate(id);
+        return patched;
+    }
+
+    private <T> void applyIfPresent(T value, Consumer<T> setter) {
+        if (value != null) {
+            setter.accept(value);
+        }
     }
 
     private void validateUserDetails(UserUpdateDTO userDTO, User user) {
@@ -105,10 +320,37 @@ public class UserServiceImpl implements IUserService {
     public void deleteUser(String userIdStr) {
         Long id = parseToLong(userIdStr);
 
-        if(!existsById(id)){
-            throw new UserNotFoundException("User is not found with id: " + id);
+        DeletedUser user = userRepository.deleteUserByIdReturning(id)
+                .orElseThrow(() -> new UserNotFoundException("User is not found with id: " + id));
+        birthDateHistogram.remove(user.getBirthDate());
+        userNameIndex.remove(id, user.getEmail(), user.getFirstName(), user.getLastName());
+        userTableVersion.bump();
+        userCache.invalidate(id);
+    }
+
+    @Override
+    public UserBulkDeleteResultDTO deleteUsers(List<Long> userIds) {
+        if (userIds.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("User id can not be null");
+        }
+        List<Long> requested = userIds.stream().distinct().toList();
+        if (requested.isEmpty() || requested.size() > maxBatchSize) {
+            throw new BadRequestException("Number of ids must be between 1 and " + maxBatchSize);
+        }
+        Set<Long> deleted = new HashSet<>();
+        for (DeletedUser user : userRepository.deleteAllByIdReturning(requested)) {
+            deleted.add(user.getId());
+            birthDateHistogram.remove(user.getBirthDate());
+            userNameIndex.remove(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName());
+        }
+        if (!deleted.isEmpty()) {
+            userTableVersion.bump();
         }
-        userRepository.deleteById(id);
+        userCache.invalidateAll(deleted);
+        return UserBulkDeleteResultDTO.builder()
+                .deleted(requested.stream().filter(deleted::contains).toList())
+                .missing(requested.stream().filter(id -> !deleted.contains(id)).toList())
+                .build();
     }
 
     private Long parseToLong(String value){
@@ -123,20 +365,123 @@ public class UserServiceImpl implements IUserService {
         return userRepository.existsById(id);
     }
 
+    /**
+     * Searches may be answered by a replica that has not applied the last write yet, so no version
+     * is handed out until the read-your-writes window has passed since that write.
+     */
+    @Override
+    public String getUsersVersion() {
+        if (replicaUrls != null && !replicaUrls.isEmpty() && userTableVersion.changedWithin(readYourWritesWindow)) {
+            return null;
+        }
+        return userTableVersion.current();
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<UserDTO> searchByBirthDateRange(LocalDate from, LocalDate to) {
+        validateBirthDateRange(from, to);
+        return userRepository.findUserDTOsByBirthDateBetween(from, to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPageDTO searchByBirthDateRange(LocalDate from, LocalDate to, int limit, String cursor) {
+        validateBirthDateRange(from, to);
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("Limit must be between 1 and " + maxPageSize);
+        }
+        // One extra row tells whether another page follows without a count query
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<UserDTO> users;
+        if (cursor == null) {
+            users = userRepository.findUserDTOPageByBirthDateBetween(from, to, fetchLimit);
+        } else {
+            BirthDateCursor after = BirthDateCursor.decode(cursor);
+            users = userRepository.findUserDTOPageByBirthDateBetweenAfter(from, to, after.birthDate(), after.id(), fetchLimit);
+        }
+        if (users.size() <= limit) {
+            return new UserPageDTO(users, null);
+        }
+        List<UserDTO> page = users.subList(0, limit);
+        UserDTO last = page.get(limit - 1);
+        return new UserPageDTO(page, new BirthDateCursor(last.getBirthDate(), last.getId()).encode());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByBirthDateRange(LocalDate from, LocalDate to, Consumer<? super UserDTO> consumer) {
+        validateBirthDateRange(from, to);
+        try (Stream<UserDTO> users = userRepository.streamUserDTOsByBirthDateBetween(from, to)) {
+            users.forEach(consumer);
+        }
+    }
+
+    @Override
+    public long countByBirthDateRange(LocalDate from, LocalDate to) {
+        validateBirthDateRange(from, to);
+        return birthDateHistogram.count(from, to);
+    }
+
+    @Override
+    public List<BirthDateBucketDTO> birthDateHistogram(LocalDate from, LocalDate to, HistogramInterval interval) {
+        validateBirthDateRange(from, to);
+        return birthDateHistogram.histogram(from, to, interval);
+    }
+
+    /**
+     * The index may lag behind writes made elsewhere, so users that no longer match are dropped.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new BadRequestException("Prefix must not be empty");
+        }
+        if (limit < 1 || limit > maxAutocompleteSize) {
+            throw new BadRequestException("Limit must be between 1 and " + maxAutocompleteSize);
+        }
+        List<Long> ids = userNameIndex.find(prefix, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserDTO> users = userRepository.findUserDTOsByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserDTO::getId, Function.identity()));
+        String lowerCasePrefix = prefix.toLowerCase(Locale.ROOT);
+        return ids.stream()
+                .map(users::get)
+                .filter(user -> user != null && (startsWith(user.getEmail(), lowerCasePrefix)
+                        || startsWith(user.getFirstName(), lowerCasePrefix)
+                        || startsWith(user.getLastName(), lowerCasePrefix)))
+                .toList();
+    }
+
+    private static boolean startsWith(String value, String lowerCasePrefix) {
+        return value != null && value.toLowerCase(Locale.ROOT).startsWith(lowerCasePrefix);
+    }
+
+    @Override
+    public UserImportResultDTO importUsers(InputStream csv, Consumer<? super UserImportRejectionDTO> rejections) {
+        // The import copies rows into one users table and relies on its unique constraints
+        if (shardUrls != null && !shardUrls.isEmpty()) {
+            throw new BadRequestException("Import is not available while users are sharded");
+        }
+        return userCsvImporter.importUsers(csv, rejections);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportUsers(LocalDate from, LocalDate to, OutputStream csv) {
+        if (from != null && to != null) {
+            validateBirthDateRange(from, to);
+        }
+        return userCsvExporter.exportUsers(from, to, csv);
+    }
+
+    private void validateBirthDateRange(LocalDate from, LocalDate to) {
         if (from.isAfter(to)) {
             throw new BadRequestException("Invalid range for birth dates.");
         }
-        return userRepository
-                .findAll()
-                .stream()
-                .filter(user ->
-                        (from.isEqual(user.getBirthDate()) || from.isBefore(user.getBirthDate()))
-                                && (to.isEqual(user.getBirthDate()) || to.isAfter(user.getBirthDate()))
-                )
-                .map(userDTOMapper)
-                .toList();
     }
 
 }
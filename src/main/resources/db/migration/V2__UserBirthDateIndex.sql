@@ -0,0 +1 @@
+CREATE INDEX idx_users_birth_date ON users USING btree (birth_date);
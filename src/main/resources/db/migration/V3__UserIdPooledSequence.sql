@@ -0,0 +1,3 @@
+-- Hibernate's pooled optimizer reserves a block of 50 ids per nextval call,
+-- which lets inserts be sent as JDBC batches (IDENTITY columns disable batching).
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
@@ -0,0 +1,3 @@
+-- createUser relies on unique constraints instead of existence pre-checks.
+-- The email constraint from V1 is named users_email_key by PostgreSQL.
+ALTER TABLE users ADD CONSTRAINT users_phone_key UNIQUE (phone);
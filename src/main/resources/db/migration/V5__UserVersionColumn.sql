@@ -0,0 +1,2 @@
+-- Row version for optimistic locking of user updates.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
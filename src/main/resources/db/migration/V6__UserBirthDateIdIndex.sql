@@ -0,0 +1,4 @@
+-- Serves birth-date range queries ordered by (birth_date, id) and keyset pagination on that key.
+-- The single-column index on birth_date is a prefix of it and no longer needed.
+CREATE INDEX idx_users_birth_date_id ON users USING btree (birth_date, id);
+DROP INDEX idx_users_birth_date;
@@ -0,0 +1,14 @@
+-- Emails and phones of all users when the users table is sharded; only the first shard's copy is used.
+-- Unique constraints of the users table only cover one shard, see GlobalUserKeys.
+CREATE TABLE user_emails
+(
+    email   VARCHAR(319) PRIMARY KEY,
+    user_id BIGINT NOT NULL
+);
+CREATE INDEX idx_user_emails_user_id ON user_emails USING btree (user_id);
+CREATE TABLE user_phones
+(
+    phone   VARCHAR(14) PRIMARY KEY,
+    user_id BIGINT NOT NULL
+);
+CREATE INDEX idx_user_phones_user_id ON user_phones USING btree (user_id);
@@ -0,0 +1,61 @@
+package com.norbert.clearsolutions.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTests {
+
+    @Test
+    void tryAcquire_SharedLimitHalfUsed_ShedsSearchesBeforeWrites() {
+        AdmissionControl admissionControl = new AdmissionControl(10, 1, 100);
+        List<AdmissionControl.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            permits.add(admissionControl.tryAcquire("create", AdmissionPriority.CRITICAL).orElseThrow());
+        }
+
+        assertTrue(admissionControl.tryAcquire("search", AdmissionPriority.SHEDDABLE).isEmpty());
+        assertTrue(admissionControl.tryAcquire("get", AdmissionPriority.NORMAL).isPresent());
+        assertTrue(admissionControl.tryAcquire("update", AdmissionPriority.CRITICAL).isPresent());
+
+        permits.forEach(permit -> permit.release(false));
+    }
+
+    @Test
+    void tryAcquire_OperationLimitReached_RejectsOnlyThatOperation() {
+        AdmissionControl admissionControl = new AdmissionControl(2, 1, 100);
+        admissionControl.tryAcquire("create", AdmissionPriority.CRITICAL).orElseThrow();
+        admissionControl.tryAcquire("create", AdmissionPriority.CRITICAL).orElseThrow();
+
+        assertTrue(admissionControl.tryAcquire("create", AdmissionPriority.CRITICAL).isEmpty());
+    }
+
+    @Test
+    void release_Dropped_LowersOperationAndSharedLimits() {
+        AdmissionControl admissionControl = new AdmissionControl(20, 1, 100);
+
+        admissionControl.tryAcquire("search", AdmissionPriority.SHEDDABLE).orElseThrow().release(true);
+
+        assertEquals(18, admissionControl.limit("search"));
+        assertEquals(18, admissionControl.sharedLimit());
+    }
+
+    @Test
+    void bindTo_CountsRejectionsPerOperation() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControl admissionControl = new AdmissionControl(1, 1, 100);
+        admissionControl.bindTo(registry);
+
+        Optional<AdmissionControl.Permit> admitted = admissionControl.tryAcquire("search", AdmissionPriority.SHEDDABLE);
+        admissionControl.tryAcquire("search", AdmissionPriority.SHEDDABLE);
+
+        assertTrue(admitted.isPresent());
+        assertEquals(1.0, registry.get("admission.rejected").tag("operation", "search").functionCounter().count());
+        assertEquals(1.0, registry.get("admission.inflight").tag("operation", "all").gauge().value());
+    }
+}
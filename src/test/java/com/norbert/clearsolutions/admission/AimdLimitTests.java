@@ -0,0 +1,68 @@
+package com.norbert.clearsolutions.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdLimitTests {
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void tryAcquire_StopsAtShareOfLimit() {
+        AimdLimit limit = new AimdLimit(10, 1, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(0.5));
+        }
+        assertFalse(limit.tryAcquire(0.5));
+        assertTrue(limit.tryAcquire(1.0));
+
+        limit.release();
+        limit.release();
+        assertTrue(limit.tryAcquire(0.5));
+    }
+
+    @Test
+    void onSample_SaturatedAtUsualLatency_GrowsByOnePerRequest() {
+        AimdLimit limit = new AimdLimit(10, 1, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(limit.onSample(5 * MILLIS, limit.limit(), false));
+        }
+
+        assertEquals(15, limit.limit());
+    }
+
+    @Test
+    void onSample_LatencyAboveTwiceUsual_ShrinksByTenth() {
+        AimdLimit limit = new AimdLimit(50, 1, 100);
+        limit.onSample(5 * MILLIS, 1, false);
+
+        assertTrue(limit.onSample(20 * MILLIS, 1, false));
+        assertEquals(45, limit.limit());
+    }
+
+    @Test
+    void onSample_FarBelowLimit_KeepsLimit() {
+        AimdLimit limit = new AimdLimit(20, 1, 100);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(5 * MILLIS, 2, false);
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    @Test
+    void onSample_Dropped_BacksOffButNotBelowMin() {
+        AimdLimit limit = new AimdLimit(20, 5, 100);
+
+        assertTrue(limit.onSample(5 * MILLIS, 1, true));
+        assertEquals(18, limit.limit());
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(5 * MILLIS, 1, true);
+        }
+        assertEquals(5, limit.limit());
+    }
+}
@@ -0,0 +1,91 @@
+package com.norbert.clearsolutions.cache;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTests {
+    private UserCache userCache;
+    private AtomicInteger loads;
+    private Function<Long, UserDTO> loader;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(2, Duration.ofMinutes(1));
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return UserDTO.builder().id(id).build();
+        };
+    }
+
+    @Test
+    void get_SecondReadIsServedFromCache() {
+        userCache.get(1L, loader);
+        userCache.get(1L, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, userCache.stats().hitCount());
+        assertEquals(1, userCache.stats().missCount());
+    }
+
+    @Test
+    void invalidate_NextReadReloads() {
+        userCache.get(1L, loader);
+        userCache.get(2L, loader);
+        userCache.invalidateAll(List.of(1L));
+
+        userCache.get(1L, loader);
+        userCache.get(2L, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_LoaderFails_ExceptionPropagatesAndNothingIsCached() {
+        assertThrows(IllegalStateException.class, () -> userCache.get(1L, id -> {
+            throw new IllegalStateException("not found");
+        }));
+
+        userCache.get(1L, loader);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_LoaderFailsWhileOthersWait_WaitersLoadThemselves() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserDTO> first = CompletableFuture.supplyAsync(() -> userCache.get(1L, id -> {
+            loading.countDown();
+            awaitQuietly(release);
+            throw new IllegalStateException("not found");
+        }));
+        loading.await();
+        CompletableFuture<UserDTO> waiter = CompletableFuture.supplyAsync(() -> userCache.get(1L, loader));
+        release.countDown();
+
+        CompletionException failure = assertThrows(CompletionException.class, first::join);
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(1L, waiter.join().getId());
+        assertEquals(1, loads.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
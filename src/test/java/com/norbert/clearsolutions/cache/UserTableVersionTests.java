@@ -0,0 +1,49 @@
+package com.norbert.clearsolutions.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTableVersionTests {
+    private final UserTableVersion version = new UserTableVersion();
+
+    @Test
+    void bump_OutsideTransaction_ChangesVersion() {
+        String before = version.current();
+        version.bump();
+        assertNotEquals(before, version.current());
+    }
+
+    @Test
+    void bump_InsideTransaction_AppliedOnlyAfterCommit() {
+        String before = version.current();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            version.bump();
+            assertEquals(before, version.current());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertNotEquals(before, version.current());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void current_AnotherInstance_DoesNotMatch() {
+        assertNotEquals(version.current(), new UserTableVersion().current());
+    }
+
+    @Test
+    void changedWithin_AfterBump_HoldsUntilPeriodPasses() throws InterruptedException {
+        version.bump();
+
+        assertTrue(version.changedWithin(Duration.ofMinutes(1)));
+        Thread.sleep(20);
+        assertFalse(version.changedWithin(Duration.ofMillis(10)));
+    }
+}
@@ -0,0 +1,14 @@
+package com.norbert.clearsolutions.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the parallel creation scenarios with the createUser write coalescer enabled, so the
+ * conflicting inserts land in one batch and must still be reported one by one.
+ */
+@SpringBootTest(properties = {
+        "user-create.coalescing.enabled=true",
+        "user-create.coalescing.max-delay=50ms"
+})
+class CoalescedUserCreationConcurrencyTests extends UserCreationConcurrencyTests {
+}
@@ -0,0 +1,164 @@
+package com.norbert.clearsolutions.controller;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import com.norbert.clearsolutions.exception.BadRequestException;
+import com.norbert.clearsolutions.exception.ReactiveGlobalExceptionHandler;
+import com.norbert.clearsolutions.mapper.UserDTOMapper;
+import com.norbert.clearsolutions.repository.ReactiveUserRepository;
+import com.norbert.clearsolutions.service.api.IReactiveUserService;
+import com.norbert.clearsolutions.service.impl.ReactiveUserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@ActiveProfiles("reactive")
+@WebFluxTest(controllers = ReactiveUserController.class, includeFilters = {
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveGlobalExceptionHandler.class)
+})
+class ReactiveUserControllerTests {
+    @Autowired
+    private WebTestClient webTestClient;
+    @MockBean
+    private IReactiveUserService userService;
+    private UserDTO userDTO;
+
+    @BeforeEach
+    void setUp() {
+        userDTO = new UserDTO(null, "john.doe@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789", null);
+    }
+
+    @Test
+    void create_ValidRequest_ReturnsCreatedId() {
+        Mockito.when(userService.createUser(Mockito.any(UserDTO.class))).thenReturn(Mono.just(1L));
+
+        webTestClient.post().uri("/api/v1/clearsolutions/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userDTO)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo(1);
+    }
+
+    @Test
+    void create_InvalidRequest_ReturnsBadRequest() {
+        userDTO.setEmail("invalid-email");
+
+        webTestClient.post().uri("/api/v1/clearsolutions/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userDTO)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("BAD_REQUEST");
+        Mockito.verifyNoInteractions(userService);
+    }
+
+    @Test
+    void create_EmailConstraintViolated_ReturnsExistingMessage() {
+        Mockito.when(userService.createUser(Mockito.any(UserDTO.class))).thenReturn(Mono.error(
+                new DuplicateKeyException("duplicate key value violates unique constraint \"users_email_key\"")));
+
+        webTestClient.post().uri("/api/v1/clearsolutions/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userDTO)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("The email is already taken");
+    }
+
+    @Test
+    void searchByBirthDateRange_NdjsonAccepted_StreamsUsers() {
+        Mockito.when(userService.searchByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(2000, 1, 1)))
+                .thenReturn(Flux.just(userDTO, userDTO));
+
+        List<UserDTO> users = webTestClient.get()
+                .uri("/api/v1/clearsolutions/user/searchByBirthDateRange?from=1990-01-01&to=2000-01-01")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(UserDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        org.junit.jupiter.api.Assertions.assertEquals(List.of(userDTO, userDTO), users);
+    }
+
+    @Test
+    void searchByBirthDateRange_FromAfterTo_ReturnsBadRequest() {
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(), Mockito.any()))
+                .thenReturn(Flux.error(new BadRequestException("Invalid range for birth dates.")));
+
+        webTestClient.get()
+                .uri("/api/v1/clearsolutions/user/searchByBirthDateRange?from=2000-01-01&to=1990-01-01")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Invalid range for birth dates.");
+    }
+
+    @Test
+    void searchByBirthDateRange_MissingParameter_ReturnsBadRequest() {
+        webTestClient.get()
+                .uri("/api/v1/clearsolutions/user/searchByBirthDateRange?from=2000-01-01")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Required parameter is missing: to");
+    }
+
+    @Test
+    void patch_StaleVersion_ReturnsConflict() {
+        Mockito.when(userService.patchUser(Mockito.any(UserUpdateDTO.class)))
+                .thenReturn(Mono.error(new ObjectOptimisticLockingFailureException("User", 1L)));
+
+        webTestClient.patch().uri("/api/v1/clearsolutions/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\":1,\"address\":\"456 New St\",\"version\":2}")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void delete_ValidUserId_ReturnsOk() {
+        Mockito.when(userService.deleteUser("1")).thenReturn(Mono.empty());
+
+        webTestClient.delete().uri("/api/v1/clearsolutions/user/1")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void update_MissingEmail_ReturnsBadRequest() {
+        ReactiveUserRepository userRepository = Mockito.mock(ReactiveUserRepository.class);
+        ReactiveUserServiceImpl service = new ReactiveUserServiceImpl(userRepository, new UserDTOMapper());
+        ReflectionTestUtils.setField(service, "minUserAge", 18);
+        Mockito.when(userService.updateUser(Mockito.any(UserUpdateDTO.class)))
+                .thenAnswer(invocation -> service.updateUser(invocation.getArgument(0)));
+        UserUpdateDTO update = UserUpdateDTO.builder().id(1L).firstName("John").lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1)).build();
+
+        webTestClient.put().uri("/api/v1/clearsolutions/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Email, first name and last name are required");
+        Mockito.verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,58 @@
+package com.norbert.clearsolutions.controller;
+
+import com.norbert.clearsolutions.admission.AdmissionControl;
+import com.norbert.clearsolutions.admission.AdmissionPriority;
+import com.norbert.clearsolutions.exception.GlobalExceptionHandler;
+import com.norbert.clearsolutions.service.api.IUserService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = UserController.class, properties = {
+        "admission-control.enabled=true",
+        "admission-control.retry-after=2s"
+}, includeFilters = {
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = GlobalExceptionHandler.class)
+})
+class UserControllerAdmissionTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private IUserService userService;
+    @MockBean
+    private AdmissionControl admissionControl;
+
+    @Test
+    void searchByBirthDateRange_Rejected_Returns503WithRetryAfter() throws Exception {
+        Mockito.when(admissionControl.tryAcquire("searchByBirthDateRange", AdmissionPriority.SHEDDABLE))
+                .thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "1995-01-01"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.message").value("The server is overloaded. Retry later."));
+        Mockito.verifyNoInteractions(userService);
+    }
+
+    @Test
+    void get_Admitted_ReleasesPermitAfterResponse() throws Exception {
+        AdmissionControl.Permit permit = Mockito.mock(AdmissionControl.Permit.class);
+        Mockito.when(admissionControl.tryAcquire("get", AdmissionPriority.NORMAL)).thenReturn(Optional.of(permit));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/1"))
+                .andExpect(status().isOk());
+        Mockito.verify(permit).release(false);
+    }
+}
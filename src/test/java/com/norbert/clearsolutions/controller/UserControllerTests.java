@@ -1,32 +1,58 @@
 package com.norbert.clearsolutions.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.norbert.clearsolutions.config.BinaryFormatConfig;
+import com.norbert.clearsolutions.dto.BirthDateBucketDTO;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.dto.UserBatchResultDTO;
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
 import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserImportRejectionDTO;
+import com.norbert.clearsolutions.dto.UserImportResultDTO;
+import com.norbert.clearsolutions.dto.UserPageDTO;
 import com.norbert.clearsolutions.dto.UserUpdateDTO;
 import com.norbert.clearsolutions.exception.BadRequestException;
 import com.norbert.clearsolutions.exception.GlobalExceptionHandler;
 import com.norbert.clearsolutions.service.api.IUserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = UserController.class, includeFilters = {
-        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = GlobalExceptionHandler.class)
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {GlobalExceptionHandler.class, BinaryFormatConfig.class})
 })
 class UserControllerTests {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private MockMvc mockMvc;
     @MockBean
@@ -38,8 +64,19 @@ class UserControllerTests {
 
     @BeforeEach
     void setUp() {
-        userDTO = new UserDTO(null, "john.doe@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789");
-        userUpdateDTO = new UserUpdateDTO(1L, "john.update@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "456 New St", "+380987654321");
+        userDTO = new UserDTO(null, "john.doe@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789", null);
+        userUpdateDTO = new UserUpdateDTO(1L, "john.update@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "456 New St", "+380987654321", null);
+    }
+
+    @Test
+    void get_ExistingUser_ReturnsUser() throws Exception {
+        userDTO.setId(1L);
+        Mockito.when(userService.getUser("1")).thenReturn(userDTO);
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.email").value("john.doe@example.com"));
     }
 
     @Test
@@ -52,6 +89,41 @@ class UserControllerTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void patch_ValidRequest_ReturnsUpdatedUser() throws Exception {
+        UserDTO patched = new UserDTO(1L, "john.update@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "456 New St", "+380987654321", 4L);
+        Mockito.when(userService.patchUser(Mockito.any(UserUpdateDTO.class))).thenReturn(patched);
+
+        mockMvc.perform(patch("/api/v1/clearsolutions/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"address\":\"456 New St\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.address").value("456 New St"))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void patch_StaleVersion_ReturnsConflict() throws Exception {
+        Mockito.when(userService.patchUser(Mockito.any(UserUpdateDTO.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException("User", 1L));
+
+        mockMvc.perform(patch("/api/v1/clearsolutions/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"address\":\"456 New St\",\"version\":2}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("CONFLICT"));
+    }
+
+    @Test
+    void get_NoConnectionAvailable_ReturnsServiceUnavailable() throws Exception {
+        Mockito.when(userService.getUser("1"))
+                .thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("The database is busy. Retry later."));
+    }
+
     @Test
     void delete_ValidUserId_ReturnsOk() throws Exception {
         Mockito.doNothing().when(userService).deleteUser("1");
@@ -68,6 +140,19 @@ class UserControllerTests {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void deleteBatch_ReturnsDeletedAndMissingIds() throws Exception {
+        Mockito.when(userService.deleteUsers(List.of(1L, 2L)))
+                .thenReturn(new UserBulkDeleteResultDTO(List.of(1L), List.of(2L)));
+
+        mockMvc.perform(delete("/api/v1/clearsolutions/user/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted[0]").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(2));
+    }
+
     @Test
     void searchByBirthDateRange_ValidDates_ReturnsUsers() throws Exception {
         Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class)))
@@ -82,6 +167,339 @@ class UserControllerTests {
                 .andExpect(jsonPath("$[0].lastName").value("Doe"));
     }
 
+    @Test
+    void autocomplete_ReturnsMatchingUsers() throws Exception {
+        userDTO.setId(1L);
+        Mockito.when(userService.autocomplete("jo", 10)).thenReturn(List.of(userDTO));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/autocomplete").param("prefix", "jo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].email").value("john.doe@example.com"));
+    }
+
+    @Test
+    void searchByBirthDateRange_ReturnsUsersVersionAsETag() throws Exception {
+        Mockito.when(userService.getUsersVersion()).thenReturn("abc-7");
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class)))
+                .thenReturn(Collections.singletonList(userDTO));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .header("If-None-Match", "\"abc-6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc-7\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(jsonPath("$[0].email").value("john.doe@example.com"));
+    }
+
+    @Test
+    void searchByBirthDateRange_CurrentVersion_ReturnsNotModifiedWithoutSearching() throws Exception {
+        Mockito.when(userService.getUsersVersion()).thenReturn("abc-7");
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .header("If-None-Match", "\"abc-6\", W/\"abc-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"abc-7\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+
+        Mockito.verify(userService, Mockito.never()).searchByBirthDateRange(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void searchByBirthDateRange_Page_CurrentVersion_ReturnsNotModifiedWithoutSearching() throws Exception {
+        Mockito.when(userService.getUsersVersion()).thenReturn("abc-7");
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .param("limit", "10")
+                        .header("If-None-Match", "\"abc-7\""))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(userService, Mockito.never())
+                .searchByBirthDateRange(Mockito.any(), Mockito.any(), Mockito.anyInt(), Mockito.any());
+    }
+
+    @Test
+    void searchByBirthDateRange_NoUsersVersion_SearchesWithoutETag() throws Exception {
+        Mockito.when(userService.getUsersVersion()).thenReturn(null);
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class)))
+                .thenReturn(Collections.singletonList(userDTO));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .header("If-None-Match", "\"abc-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$[0].email").value("john.doe@example.com"));
+    }
+
+    @Test
+    void searchByBirthDateRange_InvalidRange_ReturnsErrorWithoutETag() throws Exception {
+        Mockito.when(userService.getUsersVersion()).thenReturn("abc-7");
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "2000-01-01")
+                        .param("to", "1990-01-01")
+                        .header("If-None-Match", "*"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("ETag"));
+        Mockito.verify(userService, Mockito.never()).searchByBirthDateRange(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void searchByBirthDateRange_SmileAccepted_ReturnsSmile() throws Exception {
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class)))
+                .thenReturn(Collections.singletonList(userDTO));
+
+        byte[] body = mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode users = new SmileMapper().readTree(body);
+        assertEquals("john.doe@example.com", users.get(0).get("email").asText());
+        assertEquals("1990-01-01", users.get(0).get("birthDate").asText());
+    }
+
+    @Test
+    void searchByBirthDateRange_CborAccepted_ReturnsCbor() throws Exception {
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class)))
+                .thenReturn(Collections.singletonList(userDTO));
+
+        byte[] body = mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode users = new CBORMapper().readTree(body);
+        assertEquals("john.doe@example.com", users.get(0).get("email").asText());
+        assertEquals("1990-01-01", users.get(0).get("birthDate").asText());
+    }
+
+    @Test
+    void searchByBirthDateRange_InvalidRangeSmileAccepted_ReturnsJsonError() throws Exception {
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class)))
+                .thenThrow(new BadRequestException("Invalid range for birth dates."));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "2000-01-01")
+                        .param("to", "1990-01-01")
+                        .accept(SMILE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.message").value("Invalid range for birth dates."));
+    }
+
+    @Test
+    void searchByBirthDateRange_LimitGiven_ReturnsPageWithNextCursor() throws Exception {
+        Mockito.when(userService.searchByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(2000, 1, 1), 1, "AAAA"))
+                .thenReturn(new UserPageDTO(List.of(userDTO), "BBBB"));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .param("limit", "1")
+                        .param("cursor", "AAAA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].email").value("john.doe@example.com"))
+                .andExpect(jsonPath("$.next").value("BBBB"));
+    }
+
+    @Test
+    void searchByBirthDateRange_LastPage_OmitsNextCursor() throws Exception {
+        Mockito.when(userService.searchByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class), Mockito.eq(10), Mockito.isNull()))
+                .thenReturn(new UserPageDTO(List.of(userDTO), null));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void countByBirthDateRange_ReturnsCount() throws Exception {
+        Mockito.when(userService.countByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(2000, 1, 1))).thenReturn(42L);
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/countByBirthDateRange")
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(42));
+    }
+
+    @Test
+    void birthDateHistogram_MonthInterval_ReturnsBuckets() throws Exception {
+        Mockito.when(userService.birthDateHistogram(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 2, 28), HistogramInterval.MONTH))
+                .thenReturn(List.of(new BirthDateBucketDTO(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 31), 3),
+                        new BirthDateBucketDTO(LocalDate.of(1990, 2, 1), LocalDate.of(1990, 2, 28), 5)));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/birthDateHistogram")
+                        .param("from", "1990-01-01")
+                        .param("to", "1990-02-28")
+                        .param("interval", "MONTH"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].from").value("1990-01-01"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[1].to").value("1990-02-28"))
+                .andExpect(jsonPath("$[1].count").value(5));
+    }
+
+    @Test
+    void birthDateHistogram_UnknownInterval_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/clearsolutions/user/birthDateHistogram")
+                        .param("from", "1990-01-01")
+                        .param("to", "1990-02-28")
+                        .param("interval", "WEEK"))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(userService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importUsers_StreamsRejectionsThenCounts() throws Exception {
+        Mockito.when(userService.importUsers(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            Consumer<UserImportRejectionDTO> rejections = invocation.getArgument(1);
+            rejections.accept(new UserImportRejectionDTO(2, "Invalid email format"));
+            return new UserImportResultDTO(1, 1);
+        });
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import")
+                        .contentType("text/csv")
+                        .content("email,firstName,lastName,birthDate\nbad,A,B,1990-01-01\nok@example.com,A,B,1990-01-01\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.rejections[0].row").value(2))
+                .andExpect(jsonPath("$.rejections[0].error").value("Invalid email format"))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    void importUsers_NoRejections_ReturnsEmptyList() throws Exception {
+        Mockito.when(userService.importUsers(Mockito.any(), Mockito.any())).thenReturn(new UserImportResultDTO(3, 0));
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import")
+                        .contentType("text/csv")
+                        .content("email,firstName,lastName,birthDate\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejections").isEmpty())
+                .andExpect(jsonPath("$.imported").value(3));
+    }
+
+    @Test
+    void importUsers_MissingColumn_ReturnsBadRequest() throws Exception {
+        Mockito.when(userService.importUsers(Mockito.any(), Mockito.any()))
+                .thenThrow(new BadRequestException("Missing CSV columns: birthDate"));
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import")
+                        .contentType("text/csv")
+                        .content("email,firstName,lastName\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Missing CSV columns: birthDate"));
+    }
+
+    @Test
+    void exportUsers_StreamsCsvAttachment() throws Exception {
+        Mockito.when(userService.exportUsers(Mockito.eq(LocalDate.of(1990, 1, 1)), Mockito.isNull(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    OutputStream csv = invocation.getArgument(2);
+                    csv.write("id,email\n1,john.doe@example.com\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/export").param("from", "1990-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\""))
+                .andExpect(content().string("id,email\n1,john.doe@example.com\n"));
+    }
+
+    @Test
+    void exportUsers_GzipRequested_CompressesCsv() throws Exception {
+        Mockito.when(userService.exportUsers(Mockito.isNull(), Mockito.isNull(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    OutputStream csv = invocation.getArgument(2);
+                    csv.write("id,email\n".getBytes(StandardCharsets.UTF_8));
+                    return 0L;
+                });
+
+        byte[] body = mockMvc.perform(get("/api/v1/clearsolutions/user/export").param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv.gz\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream csv = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("id,email\n", new String(csv.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportUsers_InvalidRange_ReturnsJsonError() throws Exception {
+        Mockito.when(userService.exportUsers(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new BadRequestException("Invalid range for birth dates."));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/export")
+                        .param("from", "2000-01-01")
+                        .param("to", "1990-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.message").value("Invalid range for birth dates."));
+    }
+
+    @Test
+    void searchByBirthDateRange_NdjsonAccepted_StreamsOneUserPerLine() throws Exception {
+        UserDTO secondUserDTO = new UserDTO(2L, "jane.doe@example.com", "Jane", "Doe", LocalDate.of(1992, 2, 2), null, null, null);
+        Mockito.doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(2);
+            consumer.accept(userDTO);
+            consumer.accept(secondUserDTO);
+            return null;
+        }).when(userService).streamByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class), Mockito.any());
+
+        String body = mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("from", "1990-01-01")
+                        .param("to", "2000-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(userDTO, objectMapper.readValue(lines[0], UserDTO.class));
+        assertEquals(secondUserDTO, objectMapper.readValue(lines[1], UserDTO.class));
+        Mockito.verify(userService, Mockito.never()).searchByBirthDateRange(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void searchByBirthDateRange_NdjsonAccepted_FromAfterTo_ReturnsBadRequest() throws Exception {
+        Mockito.doThrow(new BadRequestException("Invalid range for birth dates."))
+                .when(userService).streamByBirthDateRange(Mockito.any(LocalDate.class), Mockito.any(LocalDate.class), Mockito.any());
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/searchByBirthDateRange")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("from", "2000-01-01")
+                        .param("to", "1990-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid range for birth dates."));
+    }
+
     @Test
     public void searchByBirthDateRange_FromAfterTo_ReturnsBadRequest() throws Exception {
         String fromDate = "2000-01-01";
@@ -111,6 +529,52 @@ class UserControllerTests {
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    @Test
+    void create_CborRequest_ReturnsCreatedIdAsCbor() throws Exception {
+        Mockito.when(userService.createUser(Mockito.any(UserDTO.class))).thenReturn(1L);
+        CBORMapper cborMapper = CBORMapper.builder().addModule(new JavaTimeModule()).build();
+
+        byte[] body = mockMvc.perform(post("/api/v1/clearsolutions/user")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(userDTO)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(1L, cborMapper.readTree(body).get("id").asLong());
+        Mockito.verify(userService).createUser(userDTO);
+    }
+
+    @Test
+    void createBatch_ReturnsPerItemResults() throws Exception {
+        Mockito.when(userService.createUsers(Mockito.anyList())).thenReturn(List.of(
+                UserBatchResultDTO.builder().index(0).id(1L).build(),
+                UserBatchResultDTO.builder().index(1).error("The email is already taken").build()));
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(userDTO, userDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].error").value("The email is already taken"));
+    }
+
+    @Test
+    void create_PhoneConstraintViolated_ReturnsBadRequestWithExistingMessage() throws Exception {
+        ConstraintViolationException violation = new ConstraintViolationException(
+                "could not execute statement", new SQLException("duplicate key"), "users_phone_key");
+        Mockito.when(userService.createUser(Mockito.any(UserDTO.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The phone is already taken"));
+    }
+
     @Test
     void create_InvalidRequest_ReturnsBadRequest() throws Exception {
         userDTO.setEmail("invalid-email");
@@ -120,4 +584,15 @@ class UserControllerTests {
                         .content(objectMapper.writeValueAsString(userDTO)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void create_NameLongerThanColumn_ReturnsBadRequest() throws Exception {
+        userDTO.setFirstName("A".repeat(31));
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDTO)))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(userService);
+    }
 }
@@ -0,0 +1,108 @@
+package com.norbert.clearsolutions.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.norbert.clearsolutions.dto.UserDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class UserCreationConcurrencyTests {
+    private static final int PARALLEL_REQUESTS = 16;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void parallelCreates_SameEmail_ExactlyOneSucceeds() throws Exception {
+        List<MockHttpServletResponse> responses = createInParallel(index -> new UserDTO(null, "same@example.com",
+                "John", "Doe", LocalDate.of(1990, 1, 1), null, String.format("+380%09d", index), null));
+
+        assertOneCreatedRestRejected(responses, "The email is already taken");
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE email = 'same@example.com'", Integer.class));
+    }
+
+    @Test
+    void parallelCreates_SamePhone_ExactlyOneSucceeds() throws Exception {
+        List<MockHttpServletResponse> responses = createInParallel(index -> new UserDTO(null, "user" + index + "@example.com",
+                "John", "Doe", LocalDate.of(1990, 1, 1), null, "+380123456789", null));
+
+        assertOneCreatedRestRejected(responses, "The phone is already taken");
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE phone = '+380123456789'", Integer.class));
+    }
+
+    private List<MockHttpServletResponse> createInParallel(IntFunction<UserDTO> userFactory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+                String body = objectMapper.writeValueAsString(userFactory.apply(i));
+                Callable<MockHttpServletResponse> request = () -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/v1/clearsolutions/user")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse();
+                };
+                futures.add(executor.submit(request));
+            }
+            start.countDown();
+            List<MockHttpServletResponse> responses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : futures) {
+                responses.add(future.get());
+            }
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertOneCreatedRestRejected(List<MockHttpServletResponse> responses, String expectedMessage) throws Exception {
+        assertEquals(1, responses.stream().filter(response -> response.getStatus() == 200).count());
+        for (MockHttpServletResponse response : responses) {
+            if (response.getStatus() != 200) {
+                assertEquals(400, response.getStatus());
+                assertEquals(expectedMessage, objectMapper.readTree(response.getContentAsString()).get("message").asText());
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.norbert.clearsolutions.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class UserCsvExportTests {
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("""
+                INSERT INTO users (email, first_name, last_name, birth_date, address, phone) VALUES
+                ('ann@example.com', 'Ann', 'O"Neil', DATE '1980-01-01', '1 Main St, Apt 2', '+380000000001'),
+                ('bob@example.com', 'Bob', 'Doe', DATE '1990-01-01', NULL, NULL)""");
+    }
+
+    @Test
+    void exportUsers_BirthDateRange_ExportsOnlyUsersInside() throws Exception {
+        String csv = mockMvc.perform(get("/api/v1/clearsolutions/user/export").param("from", "1985-01-01"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = csv.split("\n");
+        assertEquals("id,email,firstName,lastName,birthDate,address,phone", lines[0]);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].endsWith(",bob@example.com,Bob,Doe,1990-01-01,,"), lines[1]);
+    }
+
+    @Test
+    void exportUsers_ExportedFile_CanBeImportedAgain() throws Exception {
+        String csv = mockMvc.perform(get("/api/v1/clearsolutions/user/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        jdbcTemplate.update("DELETE FROM users");
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        assertEquals("O\"Neil", jdbcTemplate.queryForObject("SELECT last_name FROM users WHERE email = 'ann@example.com'", String.class));
+        assertEquals("1 Main St, Apt 2", jdbcTemplate.queryForObject("SELECT address FROM users WHERE email = 'ann@example.com'", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT phone FROM users WHERE email = 'bob@example.com'", String.class));
+    }
+}
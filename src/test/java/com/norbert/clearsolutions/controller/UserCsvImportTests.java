@@ -0,0 +1,111 @@
+package com.norbert.clearsolutions.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A chunk size of 2 makes the small files below span several chunks
+@SpringBootTest(properties = "user-import.chunk-size=2")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class UserCsvImportTests {
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("""
+                INSERT INTO users (email, first_name, last_name, birth_date, phone)
+                VALUES ('taken@example.com', 'Old', 'User', DATE '1980-01-01', '+380000000001')""");
+    }
+
+    @Test
+    void importUsers_ValidAndInvalidRows_ImportsValidRowsAndReportsTheRest() throws Exception {
+        String csv = """
+                email,firstName,lastName,birthDate,address,phone
+                ann@example.com,Ann,"O""Neil, Jr",1990-01-01,"1 Main St, Apt 2",+380990000001
+                bad-email,Bob,Doe,1990-01-01,,
+                taken@example.com,Tom,Doe,1990-01-01,,
+                kid@example.com,Kid,Doe,2020-01-01,,
+                date@example.com,Bad,Date,1990-13-01,,
+                ann@example.com,Second,Ann,1990-01-01,,
+                phone@example.com,Same,Phone,1991-01-01,,+380990000001
+                long@example.com,AVeryLongFirstNameThatExceedsThirtyChars,Doe,1991-01-01,,
+                old@example.com,Old,Phone,1991-01-01,,+380000000001
+                bob@example.com,Bob,NoPhone,1991-02-02,,
+                """;
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(8))
+                .andExpect(jsonPath("$.rejections[*].row").value(contains(2, 3, 4, 5, 6, 7, 8, 9)))
+                .andExpect(jsonPath("$.rejections[0].error").value("Invalid email format"))
+                .andExpect(jsonPath("$.rejections[1].error").value("The email is already taken"))
+                .andExpect(jsonPath("$.rejections[4].error").value("The email is already taken"))
+                .andExpect(jsonPath("$.rejections[5].error").value("The phone is already taken"))
+                .andExpect(jsonPath("$.rejections[7].error").value("The phone is already taken"));
+
+        assertEquals(List.of("ann@example.com", "bob@example.com", "taken@example.com"),
+                jdbcTemplate.queryForList("SELECT email FROM users ORDER BY email", String.class));
+        assertEquals("O\"Neil, Jr", jdbcTemplate.queryForObject(
+                "SELECT last_name FROM users WHERE email = 'ann@example.com'", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT phone FROM users WHERE email = 'bob@example.com'", String.class));
+    }
+
+    @Test
+    void importUsers_ImportedUsers_AreCountedAndFoundByTheApi() throws Exception {
+        String csv = """
+                email,firstName,lastName,birthDate
+                one@example.com,One,User,1970-05-05
+                two@example.com,Two,User,1970-05-05
+                """;
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        mockMvc.perform(get("/api/v1/clearsolutions/user/countByBirthDateRange")
+                        .param("from", "1970-05-05")
+                        .param("to", "1970-05-05"))
+                .andExpect(jsonPath("$.count").value(2));
+    }
+
+    @Test
+    void importUsers_MalformedRow_ImportsNothing() throws Exception {
+        String csv = """
+                email,firstName,lastName,birthDate
+                one@example.com,One,User,1970-05-05
+                two@example.com,"Two,User,1970-05-05
+                """;
+
+        mockMvc.perform(post("/api/v1/clearsolutions/user/import").contentType("text/csv").content(csv))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM users", Integer.class));
+    }
+}
@@ -0,0 +1,71 @@
+package com.norbert.clearsolutions.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionLimitingDataSourceTests {
+    private DataSource target;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = Mockito.mock(DataSource.class);
+        connection = Mockito.mock(Connection.class);
+        Mockito.when(target.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    void getConnection_PoolExhausted_TimesOut() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 10, Duration.ofMillis(50));
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        Mockito.verify(target, Mockito.times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_NoWaitingAllowed_FailsImmediately() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 0, Duration.ofMinutes(1));
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    @Test
+    void close_ReleasesPermitOnce() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, 10, Duration.ofMillis(50));
+        Connection first = dataSource.getConnection();
+
+        first.close();
+        first.close();
+
+        assertEquals(2, dataSource.availablePermits());
+        Mockito.verify(connection, Mockito.times(2)).close();
+    }
+
+    @Test
+    void getConnection_TargetFails_ReleasesPermit() throws SQLException {
+        Mockito.when(target.getConnection()).thenThrow(new SQLException("connection refused"));
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 10, Duration.ofMillis(50));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    void unwrap_DelegatesToTargetConnection() throws SQLException {
+        Mockito.when(connection.unwrap(String.class)).thenReturn("driver connection");
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 10, Duration.ofMillis(50));
+
+        assertEquals("driver connection", dataSource.getConnection().unwrap(String.class));
+    }
+}
@@ -0,0 +1,59 @@
+package com.norbert.clearsolutions.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesFilterTests {
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void doFilter_Write_SetsCookieAndReadsFromPrimary() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(primaryOnlyDuring(new MockHttpServletRequest("POST", "/api/v1/clearsolutions/user"), response));
+        String cookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie);
+        assertTrue(cookie.startsWith(ReadYourWritesFilter.COOKIE + "=1"));
+        assertTrue(cookie.contains("Max-Age=5"));
+        assertFalse(ReplicaRouting.isPrimaryOnly());
+    }
+
+    @Test
+    void doFilter_ReadWithCookie_ReadsFromPrimary() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/clearsolutions/user/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "1"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(primaryOnlyDuring(request, response));
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+        assertFalse(ReplicaRouting.isPrimaryOnly());
+    }
+
+    @Test
+    void doFilter_ReadWithoutCookie_ReadsFromReplica() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(primaryOnlyDuring(new MockHttpServletRequest("GET", "/api/v1/clearsolutions/user/1"), response));
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    private boolean primaryOnlyDuring(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicBoolean primaryOnly = new AtomicBoolean();
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                primaryOnly.set(ReplicaRouting.isPrimaryOnly());
+            }
+        });
+        return primaryOnly.get();
+    }
+}
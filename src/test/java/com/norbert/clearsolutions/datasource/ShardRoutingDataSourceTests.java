@@ -0,0 +1,43 @@
+package com.norbert.clearsolutions.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRoutingDataSourceTests {
+
+    @Test
+    void getConnection_TakesCurrentShard() throws SQLException {
+        Connection first = Mockito.mock(Connection.class);
+        Connection second = Mockito.mock(Connection.class);
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(List.of(dataSource(first), dataSource(second)));
+
+        assertSame(first, dataSource.getConnection());
+        int previous = ShardRouting.set(1);
+        try {
+            assertSame(second, dataSource.getConnection());
+        } finally {
+            ShardRouting.restore(previous);
+        }
+        assertSame(first, dataSource.getConnection());
+    }
+
+    @Test
+    void constructor_OneShard_Throws() throws SQLException {
+        List<DataSource> shards = List.of(dataSource(Mockito.mock(Connection.class)));
+
+        assertThrows(IllegalArgumentException.class, () -> new ShardRoutingDataSource(shards));
+    }
+
+    private static DataSource dataSource(Connection connection) throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,138 @@
+package com.norbert.clearsolutions.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class ShardsTests {
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private final Shards shards = new Shards(3, transactionManager);
+
+    @AfterEach
+    void tearDown() {
+        shards.destroy();
+    }
+
+    @Test
+    void shardOf_SequentialIds_SpreadEvenlyAndStable() {
+        int[] counts = new int[3];
+        for (long id = 1; id <= 30_000; id++) {
+            counts[shards.shardOf(id)]++;
+        }
+
+        for (int count : counts) {
+            assertEquals(10_000, count, 300);
+        }
+        assertEquals(shards.shardOf(12345), new Shards(3, transactionManager).shardOf(12345));
+    }
+
+    @Test
+    void on_RoutesToShardInNewTransactionAndRestores() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(Mockito.mock(TransactionStatus.class));
+
+        int routed = shards.on(2, true, ShardRouting::current);
+
+        assertEquals(2, routed);
+        assertEquals(0, ShardRouting.current());
+        Mockito.verify(transactionManager).getTransaction(Mockito.argThat(definition ->
+                definition.isReadOnly() && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void inParallel_TasksDecoratedOnCallingThread() {
+        ThreadLocal<String> request = new ThreadLocal<>();
+        Shards decorated = new Shards(3, transactionManager, task -> {
+            String caller = request.get();
+            return () -> {
+                request.set(caller);
+                try {
+                    task.run();
+                } finally {
+                    request.remove();
+                }
+            };
+        });
+        request.set("request-1");
+        try {
+            assertEquals(List.of("request-1", "request-1"), decorated.inParallel(List.of(0, 2), shard -> request.get()));
+        } finally {
+            request.remove();
+            decorated.destroy();
+        }
+    }
+
+    @Test
+    void onEach_ReturnsResultsInShardOrder() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(Mockito.mock(TransactionStatus.class));
+
+        List<Integer> routed = shards.onEach(false, shard -> ShardRouting.current() * 10 + shard);
+
+        assertEquals(List.of(0, 11, 22), routed);
+    }
+
+    @Test
+    void onEach_OneShardFails_Throws() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(Mockito.mock(TransactionStatus.class));
+
+        assertThrows(IllegalStateException.class, () -> shards.onEach(List.of(0, 1), true, shard -> {
+            if (shard == 1) {
+                throw new IllegalStateException("Shard is down");
+            }
+            return shard;
+        }));
+    }
+
+    @Test
+    void stream_ReadsShardsInTurnAndEndsEachTransaction() {
+        List<TransactionStatus> statuses = new ArrayList<>();
+        Mockito.when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            TransactionStatus status = Mockito.mock(TransactionStatus.class);
+            statuses.add(status);
+            return status;
+        });
+
+        List<Integer> rows;
+        try (Stream<Integer> stream = shards.stream(shard -> Stream.of(ShardRouting.current(), shard))) {
+            rows = stream.toList();
+        }
+
+        assertEquals(List.of(0, 0, 1, 1, 2, 2), rows);
+        assertEquals(3, statuses.size());
+        statuses.forEach(status -> Mockito.verify(transactionManager).commit(status));
+    }
+
+    @Test
+    void stream_QueryRunsWhenRead_RoutesToItsShardUntilClosed() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(Mockito.mock(TransactionStatus.class));
+
+        List<Integer> rows;
+        try (Stream<Integer> stream = shards.stream(shard -> Stream.of(shard).map(row -> ShardRouting.current()))) {
+            rows = stream.toList();
+        }
+
+        assertEquals(List.of(0, 1, 2), rows);
+        assertEquals(0, ShardRouting.current());
+    }
+
+    @Test
+    void groupByShard_PutsEachIdOnItsShard() {
+        List<List<Long>> groups = shards.groupByShard(List.of(1L, 2L, 3L, 4L, 5L), id -> id);
+
+        for (int shard = 0; shard < 3; shard++) {
+            for (long id : groups.get(shard)) {
+                assertEquals(shard, shards.shardOf(id));
+            }
+        }
+        assertEquals(5, groups.stream().mapToInt(List::size).sum());
+    }
+}
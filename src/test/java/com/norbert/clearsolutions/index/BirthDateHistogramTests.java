@@ -0,0 +1,98 @@
+package com.norbert.clearsolutions.index;
+
+import com.norbert.clearsolutions.dto.BirthDateBucketDTO;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.repository.BirthDateCount;
+import com.norbert.clearsolutions.repository.UserStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BirthDateHistogramTests {
+    private BirthDateHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        UserStore userRepository = Mockito.mock(UserStore.class);
+        Mockito.when(userRepository.countUsersByBirthDate()).thenReturn(List.of(
+                birthDateCount(LocalDate.of(1989, 12, 31), 1),
+                birthDateCount(LocalDate.of(1990, 1, 15), 2),
+                birthDateCount(LocalDate.of(1990, 2, 1), 3),
+                birthDateCount(LocalDate.of(1991, 6, 30), 4),
+                birthDateCount(LocalDate.of(1850, 1, 1), 5)));
+        histogram = new BirthDateHistogram(userRepository, "1900-01-01", "2099-12-31");
+        histogram.afterPropertiesSet();
+    }
+
+    @Test
+    void count_SeededFromDatabase_SkipsBirthDatesOutsideBounds() {
+        assertEquals(10, histogram.count(LocalDate.of(1800, 1, 1), LocalDate.of(2200, 1, 1)));
+        assertEquals(5, histogram.count(LocalDate.of(1990, 1, 15), LocalDate.of(1990, 2, 1)));
+        assertEquals(0, histogram.count(LocalDate.of(1990, 1, 16), LocalDate.of(1990, 1, 31)));
+    }
+
+    @Test
+    void histogram_YearInterval_CutsFirstAndLastBucketAtRange() {
+        List<BirthDateBucketDTO> buckets = histogram.histogram(LocalDate.of(1989, 7, 1), LocalDate.of(1991, 3, 31), HistogramInterval.YEAR);
+
+        assertEquals(List.of(
+                new BirthDateBucketDTO(LocalDate.of(1989, 7, 1), LocalDate.of(1989, 12, 31), 1),
+                new BirthDateBucketDTO(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31), 5),
+                new BirthDateBucketDTO(LocalDate.of(1991, 1, 1), LocalDate.of(1991, 3, 31), 0)), buckets);
+    }
+
+    @Test
+    void histogram_MonthInterval_ReturnsOneBucketPerMonth() {
+        List<BirthDateBucketDTO> buckets = histogram.histogram(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 3, 31), HistogramInterval.MONTH);
+
+        assertEquals(List.of(2L, 3L, 0L), buckets.stream().map(BirthDateBucketDTO::getCount).toList());
+        assertEquals(LocalDate.of(1990, 2, 28), buckets.get(1).getTo());
+    }
+
+    @Test
+    void move_UpdatesBothBirthDates() {
+        histogram.move(LocalDate.of(1990, 1, 15), LocalDate.of(1995, 5, 5));
+        histogram.add(LocalDate.of(1995, 5, 5));
+        histogram.remove(LocalDate.of(1990, 2, 1));
+
+        assertEquals(1, histogram.count(LocalDate.of(1990, 1, 15), LocalDate.of(1990, 1, 15)));
+        assertEquals(2, histogram.count(LocalDate.of(1990, 2, 1), LocalDate.of(1990, 2, 1)));
+        assertEquals(2, histogram.count(LocalDate.of(1995, 5, 5), LocalDate.of(1995, 5, 5)));
+    }
+
+    @Test
+    void add_InsideTransaction_AppliedOnlyAfterCommit() {
+        LocalDate birthDate = LocalDate.of(1995, 5, 5);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            histogram.add(birthDate);
+            assertEquals(0, histogram.count(birthDate, birthDate));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, histogram.count(birthDate, birthDate));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static BirthDateCount birthDateCount(LocalDate birthDate, long count) {
+        return new BirthDateCount() {
+            @Override
+            public LocalDate getBirthDate() {
+                return birthDate;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
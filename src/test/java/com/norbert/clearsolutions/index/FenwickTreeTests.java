@@ -0,0 +1,44 @@
+package com.norbert.clearsolutions.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenwickTreeTests {
+
+    @Test
+    void sum_MatchesNaiveSumForEveryRange() {
+        FenwickTree tree = new FenwickTree(100);
+        long[] counts = new long[100];
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            int position = random.nextInt(100);
+            long delta = random.nextInt(7) - 2;
+            tree.add(position, delta);
+            counts[position] += delta;
+        }
+        for (int from = 0; from < 100; from++) {
+            long expected = 0;
+            for (int to = from; to < 100; to++) {
+                expected += counts[to];
+                assertEquals(expected, tree.sum(from, to), "[" + from + ", " + to + "]");
+            }
+        }
+    }
+
+    @Test
+    void sum_FromAfterTo_ReturnsZero() {
+        FenwickTree tree = new FenwickTree(10);
+        tree.add(5, 3);
+        assertEquals(0, tree.sum(6, 4));
+    }
+
+    @Test
+    void add_PositionOutsideTree_ThrowsException() {
+        FenwickTree tree = new FenwickTree(10);
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.add(10, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.sum(-1, 3));
+    }
+}
@@ -0,0 +1,121 @@
+package com.norbert.clearsolutions.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTests {
+    private final PrefixIndex index = new PrefixIndex();
+
+    @Test
+    void find_MatchesPrefixIgnoringCase_OrderedByKeyAndId() {
+        load("john@example.com", 3, "Joanna", 2, "jo", 5, "Mary", 1, "john", 4);
+
+        assertEquals(List.of(match("jo", 5), match("joanna", 2), match("john", 4), match("john@example.com", 3)),
+                index.find("JO", 10));
+        assertEquals(List.of(match("mary", 1)), index.find("m", 10));
+        assertEquals(List.of(), index.find("johnny", 10));
+    }
+
+    @Test
+    void find_StopsAtLimit() {
+        load("ann", 1, "anna", 2, "annie", 3);
+
+        assertEquals(List.of(match("ann", 1), match("anna", 2)), index.find("ann", 2));
+    }
+
+    @Test
+    void addAndRemove_AfterLoad_VisibleImmediately() {
+        load("ann", 1, "bob", 2);
+
+        index.add("Anton", 3);
+        index.remove("ann", 1);
+
+        assertEquals(List.of(match("anton", 3)), index.find("an", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void remove_ThenAddSameEntry_RestoresIt() {
+        load("ann", 1);
+
+        index.remove("ann", 1);
+        index.add("ann", 1);
+
+        assertEquals(List.of(match("ann", 1)), index.find("a", 10));
+    }
+
+    @Test
+    void load_ChangesMadeWhileReading_AreKept() {
+        index.add("carl", 7);
+        index.remove("bob", 2);
+        load("ann", 1, "bob", 2, "carl", 7);
+
+        assertEquals(List.of(match("ann", 1), match("carl", 7)), index.find("", 10));
+    }
+
+    @Test
+    void find_NonAsciiKeys_MatchByCodePoint() {
+        load("Ölga", 1, "Oleh", 2, "Øystein", 3);
+
+        assertEquals(List.of(match("ölga", 1)), index.find("Ö", 10));
+        assertEquals(List.of(match("oleh", 2)), index.find("o", 10));
+    }
+
+    @Test
+    void manyChanges_MergedIntoRun_MatchSortedReference() {
+        load();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = "user" + (i * 7919 % 5000);
+            index.add(key, i);
+            expected.add(key + "#" + i);
+            if (i % 3 == 0) {
+                index.remove(key, i);
+                expected.remove(key + "#" + i);
+            }
+        }
+
+        List<String> found = index.find("user", 10_000).stream().map(match -> match.key() + "#" + match.id()).toList();
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected.size(), found.size());
+        assertTrue(found.containsAll(expected));
+        assertTrue(index.runBytes() > 0, "changes should have been merged into the packed run");
+    }
+
+    @Test
+    void load_ShuffledEntries_FoundInKeyAndIdOrder() {
+        SplittableRandom random = new SplittableRandom(7);
+        PrefixIndex.Run.Builder entries = new PrefixIndex.Run.Builder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String key = String.format("k%04d", random.nextInt(1000));
+            long id = random.nextInt(100);
+            entries.add(key, id);
+            expected.add(String.format("%s#%03d", key, id));
+        }
+        index.load(entries);
+
+        List<String> found = index.find("k", 10_000).stream()
+                .map(match -> String.format("%s#%03d", match.key(), match.id()))
+                .toList();
+        assertEquals(expected.stream().distinct().sorted().toList(), found);
+    }
+
+    private void load(Object... keysAndIds) {
+        PrefixIndex.Run.Builder entries = new PrefixIndex.Run.Builder();
+        for (int i = 0; i < keysAndIds.length; i += 2) {
+            entries.add((String) keysAndIds[i], ((Integer) keysAndIds[i + 1]).longValue());
+        }
+        index.load(entries);
+    }
+
+    private static PrefixIndex.Match match(String key, long id) {
+        return new PrefixIndex.Match(key, id);
+    }
+}
@@ -0,0 +1,59 @@
+package com.norbert.clearsolutions.index;
+
+import com.norbert.clearsolutions.repository.UserNames;
+import com.norbert.clearsolutions.repository.UserStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserNameIndexTests {
+    private UserNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        UserStore userRepository = Mockito.mock(UserStore.class);
+        Mockito.when(userRepository.streamAllNames()).thenReturn(Stream.of(
+                new UserNames(1L, "mary@example.com", "Mary", "Johnson"),
+                new UserNames(2L, "john@example.com", "John", "Doe"),
+                new UserNames(3L, "ann@example.com", "Ann", "Jordan")));
+        index = new UserNameIndex(userRepository);
+        index.seed();
+    }
+
+    @Test
+    void find_MatchesAnyField_OrderedByMatchingValueWithoutDuplicates() {
+        assertEquals(List.of(2L, 1L, 3L), index.find("jo", 10));
+        assertEquals(List.of(2L), index.find("jo", 1));
+        assertEquals(List.of(3L), index.find("ann", 10));
+    }
+
+    @Test
+    void removeAndAdd_Rename_MovesUserToNewPrefix() {
+        index.remove(2L, "john@example.com", "John", "Doe");
+        index.add(2L, "jack@example.com", "Jack", "Doe");
+
+        assertEquals(List.of(1L, 3L), index.find("jo", 10));
+        assertEquals(List.of(2L), index.find("jac", 10));
+    }
+
+    @Test
+    void add_InsideTransaction_AppliedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.add(4L, "zoe@example.com", "Zoe", "Smith");
+            assertEquals(List.of(), index.find("zoe", 10));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(4L), index.find("zoe", 10));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.norbert.clearsolutions.load;
+
+import com.norbert.clearsolutions.ClearSolutionsTestTaskApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same closed-loop load against the application on platform threads and on virtual
+ * threads and logs throughput and latency percentiles for each. Opt-in because it takes minutes:
+ * {@code mvn test -Dtest=ThreadingModeLoadComparisonTests -Dload.comparison=true}.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "load.comparison", matches = "true")
+class ThreadingModeLoadComparisonTests {
+    private static final int USERS = 20_000;
+    private static final int CLIENTS = Integer.getInteger("load.clients", 1000);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requests-per-client", 20);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @BeforeAll
+    static void seed() {
+        try (ConfigurableApplicationContext context = start(false)) {
+            context.getBean(JdbcTemplate.class).update("""
+                    INSERT INTO users (id, email, first_name, last_name, birth_date, phone)
+                    SELECT nextval('users_id_seq'), 'user' || n || '@example.com', 'First' || n, 'Last' || n,
+                           DATE '1950-01-01' + (n % 18000), NULL
+                    FROM generate_series(1, ?) AS n
+                    """, USERS);
+        }
+    }
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("{} clients x {} requests: {}", CLIENTS, REQUESTS_PER_CLIENT, platform);
+        log.info("{} clients x {} requests: {}", CLIENTS, REQUESTS_PER_CLIENT, virtual);
+        assertEquals(0, platform.failures());
+        assertEquals(0, virtual.failures());
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = start(virtualThreads);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            AtomicInteger failures = new AtomicInteger();
+            long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            AtomicInteger next = new AtomicInteger();
+
+            long started = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int seed = client;
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        HttpRequest request = nextRequest(port, seed * REQUESTS_PER_CLIENT + i);
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - started;
+
+            Arrays.sort(latencies);
+            return new Result(virtualThreads ? "virtual threads" : "platform threads",
+                    latencies.length * 1_000_000_000.0 / elapsed,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    failures.get());
+        }
+    }
+
+    // Nine narrow birth-date searches for every create, so most of the time is spent waiting on Postgres.
+    private static HttpRequest nextRequest(int port, int sequence) {
+        String base = "http://localhost:" + port + "/api/v1/clearsolutions/user";
+        if (sequence % 10 == 0) {
+            String body = """
+                    {"email":"load%d@example.com","firstName":"Load","lastName":"Test","birthDate":"1990-01-01"}
+                    """.formatted(sequence);
+            return HttpRequest.newBuilder(URI.create(base))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        int year = 1950 + sequence % 49;
+        return HttpRequest.newBuilder(URI.create(base + "/searchByBirthDateRange?from=" + year + "-01-01&to=" + year + "-01-20"))
+                .GET()
+                .build();
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(ClearSolutionsTestTaskApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword(),
+                        "--spring.threads.virtual.enabled=" + virtualThreads);
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, double p999Millis, int failures) {
+        @Override
+        public String toString() {
+            return String.format("%s: %.0f req/s, p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, %d failures",
+                    mode, throughput, p50Millis, p99Millis, p999Millis, failures);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.norbert.clearsolutions.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlAccountingFilterTests {
+    private SqlStatementRecorder recorder;
+    private SimpleMeterRegistry meterRegistry;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new SqlStatementRecorder();
+        meterRegistry = new SimpleMeterRegistry();
+        request = new MockHttpServletRequest("GET", "/api/v1/clearsolutions/user/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/clearsolutions/user/{userId}");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void doFilter_RecordsStatementsAndTimePerEndpoint() throws Exception {
+        SqlAccountingFilter filter = new SqlAccountingFilter(recorder, meterRegistry, 20, false);
+
+        filter.doFilter(request, response, (req, res) -> {
+            recorder.record(3);
+            recorder.record(4);
+        });
+
+        assertEquals(2.0, meterRegistry.get("http.server.requests.sql.statements")
+                .tag("uri", "/api/v1/clearsolutions/user/{userId}").summary().totalAmount());
+        assertEquals(7.0, meterRegistry.get("http.server.requests.sql.time")
+                .tag("method", "GET").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertNull(response.getHeader(SqlAccountingFilter.STATEMENTS_HEADER));
+        assertNull(recorder.current());
+    }
+
+    @Test
+    void doFilter_HeadersEnabled_WritesCountsBeforeBody() throws Exception {
+        SqlAccountingFilter filter = new SqlAccountingFilter(recorder, meterRegistry, 20, true);
+
+        filter.doFilter(request, response, (req, res) -> {
+            recorder.record(5);
+            res.getWriter().write("{}");
+            recorder.record(1);
+        });
+
+        assertEquals("1", response.getHeader(SqlAccountingFilter.STATEMENTS_HEADER));
+        assertEquals("5", response.getHeader(SqlAccountingFilter.TIME_HEADER));
+    }
+
+    @Test
+    void doFilter_HeadersEnabledAndNoBody_WritesCountsAfterChain() throws Exception {
+        SqlAccountingFilter filter = new SqlAccountingFilter(recorder, meterRegistry, 20, true);
+
+        filter.doFilter(request, response, (req, res) -> recorder.record(2));
+
+        assertEquals("1", response.getHeader(SqlAccountingFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    void record_OutsideRequest_IsIgnored() {
+        recorder.record(10);
+
+        assertNull(recorder.current());
+    }
+
+    @Test
+    void decorate_TaskOnOtherThread_CountsForCallingRequest() throws Exception {
+        SqlAccountingFilter filter = new SqlAccountingFilter(recorder, meterRegistry, 20, true);
+
+        filter.doFilter(request, response, (req, res) -> {
+            recorder.record(2);
+            Thread other = new Thread(recorder.decorate(() -> recorder.record(3)));
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            res.getWriter().write("{}");
+        });
+
+        assertEquals("2", response.getHeader(SqlAccountingFilter.STATEMENTS_HEADER));
+        assertEquals("5", response.getHeader(SqlAccountingFilter.TIME_HEADER));
+    }
+}
@@ -0,0 +1,92 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.datasource.ShardRouting;
+import com.norbert.clearsolutions.datasource.Shards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class GlobalUserKeysTests {
+    private static final String NEXTVAL = "SELECT nextval('users_id_seq')";
+
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private final Shards shards = new Shards(2, transactionManager);
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final GlobalUserKeys keys = new GlobalUserKeys(shards, jdbcTemplate);
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(Mockito.mock(TransactionStatus.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.destroy();
+    }
+
+    @Test
+    void nextId_HandsOutBlockBeforeReservingNext() {
+        Mockito.when(jdbcTemplate.queryForObject(NEXTVAL, Long.class)).thenReturn(50L, 100L);
+
+        List<Long> ids = LongStream.range(0, 51).map(i -> keys.nextId()).boxed().toList();
+
+        assertEquals(LongStream.rangeClosed(1, 51).boxed().toList(), ids);
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).queryForObject(NEXTVAL, Long.class);
+    }
+
+    @Test
+    void hasUnclaimedUsers_AsksFirstShard() {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.contains("NOT EXISTS"), Mockito.eq(Boolean.class)))
+                .thenAnswer(invocation -> ShardRouting.current() == 0);
+
+        assertTrue(keys.hasUnclaimedUsers());
+        Mockito.verify(transactionManager).getTransaction(Mockito.argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void nextId_ConcurrentCallers_DoNotWaitOnReservationAndGetDistinctIds() throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        CountDownLatch reserving = new CountDownLatch(2);
+        Mockito.when(jdbcTemplate.queryForObject(NEXTVAL, Long.class)).thenAnswer(invocation -> {
+            reserving.countDown();
+            // Returns only once both callers are inside the database call at the same time
+            assertTrue(reserving.await(5, TimeUnit.SECONDS));
+            return sequence.addAndGet(50);
+        });
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            List<Future<Long>> first = IntStream.range(0, 2).mapToObj(i -> executor.submit(keys::nextId)).toList();
+            for (Future<Long> id : first) {
+                ids.add(id.get());
+            }
+        }
+        for (int i = 0; i < 98; i++) {
+            ids.add(keys.nextId());
+        }
+
+        assertEquals(LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toSet()), ids);
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).queryForObject(NEXTVAL, Long.class);
+    }
+}
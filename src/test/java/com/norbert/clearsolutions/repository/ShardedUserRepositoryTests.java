@@ -0,0 +1,226 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.datasource.ShardRouting;
+import com.norbert.clearsolutions.datasource.Shards;
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.repository.GlobalUserKeys.UserKeys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ShardedUserRepositoryTests {
+    private static final LocalDate FROM = LocalDate.of(1950, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2000, 1, 1);
+
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private final Shards shards = new Shards(2, transactionManager);
+    private final UserStore target = Mockito.mock(UserStore.class);
+    private final GlobalUserKeys keys = Mockito.mock(GlobalUserKeys.class);
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final ShardedUserRepository repository = new ShardedUserRepository(target, shards, keys, jdbcTemplate);
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(Mockito.mock(TransactionStatus.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.destroy();
+    }
+
+    @Test
+    void findUserDTOPage_MergesShardsByBirthDateAndId() {
+        Map<Integer, List<UserDTO>> pages = Map.of(
+                0, List.of(user(4, "1960-01-01"), user(2, "1970-01-01"), user(9, "1980-01-01")),
+                1, List.of(user(5, "1960-01-01"), user(1, "1965-01-01"), user(3, "1990-01-01")));
+        Mockito.when(target.findUserDTOPageByBirthDateBetween(FROM, TO, Limit.of(4)))
+                .thenAnswer(invocation -> pages.get(ShardRouting.current()));
+
+        List<UserDTO> page = repository.findUserDTOPageByBirthDateBetween(FROM, TO, Limit.of(4));
+
+        assertEquals(List.of(4L, 5L, 1L, 2L), page.stream().map(UserDTO::getId).toList());
+    }
+
+    @Test
+    void findUserDTOsByBirthDateBetween_SortsUnorderedShardResults() {
+        Map<Integer, List<UserDTO>> users = Map.of(
+                0, List.of(user(9, "1980-01-01"), user(2, "1970-01-01")),
+                1, List.of(user(3, "1990-01-01"), user(1, "1965-01-01")));
+        Mockito.when(target.findUserDTOsByBirthDateBetween(FROM, TO)).thenAnswer(invocation -> users.get(ShardRouting.current()));
+
+        List<UserDTO> merged = repository.findUserDTOsByBirthDateBetween(FROM, TO);
+
+        assertEquals(List.of(1L, 2L, 9L, 3L), merged.stream().map(UserDTO::getId).toList());
+    }
+
+    @Test
+    void saveAndFlush_NewUser_ClaimsKeysAndInsertsOnShardOfNewId() {
+        Mockito.when(keys.nextId()).thenReturn(7L);
+        Map<Integer, Collection<?>> inserted = new ConcurrentHashMap<>();
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+            inserted.put(ShardRouting.current(), invocation.getArgument(1));
+            return new int[][]{{1}};
+        });
+
+        User saved = repository.saveAndFlush(user("john@example.com", "+380123456789"));
+
+        assertEquals(7L, saved.getId());
+        assertEquals(0L, saved.getVersion());
+        Mockito.verify(keys).claim(List.of(new UserKeys(7L, "john@example.com", "+380123456789")));
+        assertEquals(Map.of(shards.shardOf(7L), List.of(saved)), inserted);
+    }
+
+    @Test
+    void saveAll_OneShardFails_UndoesOtherShardsAndReleasesKeys() {
+        long first = 1;
+        long second = LongStream.iterate(2, id -> id + 1).filter(id -> shards.shardOf(id) != shards.shardOf(first)).findFirst().orElseThrow();
+        Mockito.when(keys.nextId()).thenReturn(first, second);
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+            if (ShardRouting.current() == shards.shardOf(second)) {
+                throw new DataAccessResourceFailureException("Shard is down");
+            }
+            return new int[][]{{1}};
+        });
+        List<User> users = List.of(user("a@example.com", null), user("b@example.com", null));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> repository.saveAll(users));
+
+        Mockito.verify(jdbcTemplate).update(eq("DELETE FROM users WHERE id = ANY(?)"), (Object) Mockito.argThat(
+                ids -> ids instanceof Long[] array && List.of(array).equals(List.of(first))));
+        Mockito.verify(keys).releaseAll(List.of(first, second));
+        assertTrue(users.stream().allMatch(user -> user.getId() == null));
+    }
+
+    @Test
+    void save_ExistingUser_UpdatesOnItsShardAndReleasesReplacedKeys() {
+        User user = user("new@example.com", null);
+        user.setId(11L);
+        user.setVersion(3L);
+        Map<Integer, User> saved = new ConcurrentHashMap<>();
+        Mockito.when(target.save(user)).thenAnswer(invocation -> {
+            saved.put(ShardRouting.current(), user);
+            return user;
+        });
+
+        repository.save(user);
+
+        Mockito.verify(keys).claim(List.of(new UserKeys(11L, "new@example.com", null)));
+        assertEquals(Map.of(shards.shardOf(11L), user), saved);
+        Mockito.verify(keys).releaseExcept(11L, "new@example.com", null);
+    }
+
+    @Test
+    void deleteAllByIdReturning_DeletesOnEachShardAndReleasesKeys() {
+        Map<Integer, Collection<Long>> requested = new ConcurrentHashMap<>();
+        Mockito.when(target.deleteAllByIdReturning(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            requested.put(ShardRouting.current(), ids);
+            return ids.stream().map(ShardedUserRepositoryTests::deletedUser).toList();
+        });
+
+        List<DeletedUser> deleted = repository.deleteAllByIdReturning(List.of(1L, 2L, 3L, 4L));
+
+        assertEquals(4, deleted.size());
+        requested.forEach((shard, ids) -> ids.forEach(id -> assertEquals(shard, shards.shardOf(id))));
+        Mockito.verify(keys).releaseAll(Mockito.argThat(ids -> ids.containsAll(List.of(1L, 2L, 3L, 4L))));
+    }
+
+    @Test
+    void countUsersByBirthDate_SumsShards() {
+        LocalDate day = LocalDate.of(1990, 1, 1);
+        Mockito.when(target.countUsersByBirthDate()).thenReturn(List.of(count(day, 2)));
+
+        List<BirthDateCount> counts = repository.countUsersByBirthDate();
+
+        assertEquals(1, counts.size());
+        assertEquals(day, counts.get(0).getBirthDate());
+        assertEquals(4, counts.get(0).getCount());
+    }
+
+    @Test
+    void existsByEmail_AsksGlobalKeys() {
+        Mockito.when(keys.emailExists("john@example.com")).thenReturn(true);
+
+        assertTrue(repository.existsByEmail("john@example.com"));
+        Mockito.verifyNoInteractions(target);
+    }
+
+    private static UserDTO user(long id, String birthDate) {
+        return new UserDTO(id, "user" + id + "@example.com", "John", "Doe", LocalDate.parse(birthDate), null, null, 0L);
+    }
+
+    private static User user(String email, String phone) {
+        return User.builder()
+                .email(email)
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .phone(phone)
+                .build();
+    }
+
+    private static DeletedUser deletedUser(Long id) {
+        return new DeletedUser() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return "user" + id + "@example.com";
+            }
+
+            @Override
+            public String getFirstName() {
+                return "John";
+            }
+
+            @Override
+            public String getLastName() {
+                return "Doe";
+            }
+
+            @Override
+            public LocalDate getBirthDate() {
+                return LocalDate.of(1990, 1, 1);
+            }
+        };
+    }
+
+    private static BirthDateCount count(LocalDate day, long count) {
+        return new BirthDateCount() {
+            @Override
+            public LocalDate getBirthDate() {
+                return day;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package com.norbert.clearsolutions.repository;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTests {
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO users (email, first_name, last_name, birth_date)
+                SELECT 'user' || n || '@example.com', 'First', 'Last', DATE '1950-01-01' + (n % 20000)
+                FROM generate_series(1, 50000) AS n
+                """);
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @Test
+    void findUserDTOsByBirthDateBetween_ReturnsOnlyUsersInsideRange() {
+        LocalDate from = LocalDate.of(1960, 1, 1);
+        LocalDate to = LocalDate.of(1960, 1, 31);
+
+        List<UserDTO> users = userRepository.findUserDTOsByBirthDateBetween(from, to);
+
+        assertFalse(users.isEmpty());
+        assertTrue(users.stream().allMatch(user ->
+                !user.getBirthDate().isBefore(from) && !user.getBirthDate().isAfter(to)));
+        assertTrue(users.stream().allMatch(user -> user.getId() != null && user.getVersion() != null));
+    }
+
+    @Test
+    void findUserDTOById_ProjectsAllColumns() {
+        Long id = jdbcTemplate.queryForObject("SELECT min(id) FROM users", Long.class);
+
+        UserDTO user = userRepository.findUserDTOById(id).orElseThrow();
+
+        assertEquals(id, user.getId());
+        assertEquals("First", user.getFirstName());
+        assertEquals("Last", user.getLastName());
+        assertEquals(0L, user.getVersion());
+    }
+
+    @Test
+    void birthDateRangeQuery_QueryPlanUsesBirthDateIndex() {
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM users WHERE birth_date BETWEEN DATE '1960-01-01' AND DATE '1960-01-31'",
+                String.class);
+
+        assertTrue(plan.stream().anyMatch(line -> line.contains("idx_users_birth_date_id")), String.join("\n", plan));
+        assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan")), String.join("\n", plan));
+    }
+
+    @Test
+    void findUserDTOPageByBirthDateBetweenAfter_WalksAllUsersInKeyOrder() {
+        LocalDate from = LocalDate.of(1960, 1, 1);
+        LocalDate to = LocalDate.of(1960, 1, 31);
+        List<UserDTO> walked = new ArrayList<>();
+
+        List<UserDTO> page = userRepository.findUserDTOPageByBirthDateBetween(from, to, Limit.of(7));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            UserDTO last = page.get(page.size() - 1);
+            page = userRepository.findUserDTOPageByBirthDateBetweenAfter(from, to, last.getBirthDate(), last.getId(), Limit.of(7));
+        }
+
+        List<UserDTO> expected = userRepository.findUserDTOsByBirthDateBetween(from, to).stream()
+                .sorted(Comparator.comparing(UserDTO::getBirthDate).thenComparing(UserDTO::getId))
+                .toList();
+        assertEquals(expected.stream().map(UserDTO::getId).toList(), walked.stream().map(UserDTO::getId).toList());
+    }
+
+    @Test
+    void keysetPageQuery_QueryPlanStartsIndexScanAtCursor() {
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id, birth_date FROM users "
+                        + "WHERE birth_date BETWEEN DATE '1950-01-01' AND DATE '2000-01-01' "
+                        + "AND (birth_date, id) > (DATE '1970-01-01', 100) "
+                        + "ORDER BY birth_date, id LIMIT 51",
+                String.class);
+
+        assertTrue(plan.stream().anyMatch(line -> line.contains("idx_users_birth_date_id")), String.join("\n", plan));
+        assertTrue(plan.stream().noneMatch(line -> line.contains("Sort")), String.join("\n", plan));
+    }
+
+    @Test
+    void countUsersByBirthDate_MatchesRowCount() {
+        long total = userRepository.countUsersByBirthDate().stream().mapToLong(BirthDateCount::getCount).sum();
+
+        assertEquals(50000L, total);
+    }
+
+    @Test
+    void deleteAllByIdReturning_ReturnsDeletedUsers() {
+        Long id = jdbcTemplate.queryForObject("SELECT min(id) FROM users", Long.class);
+        LocalDate birthDate = jdbcTemplate.queryForObject("SELECT birth_date FROM users WHERE id = ?", LocalDate.class, id);
+        String email = jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, id);
+
+        List<DeletedUser> deleted = userRepository.deleteAllByIdReturning(List.of(id, -1L));
+
+        assertEquals(1, deleted.size());
+        assertEquals(id, deleted.get(0).getId());
+        assertEquals(email, deleted.get(0).getEmail());
+        assertEquals(birthDate, deleted.get(0).getBirthDate());
+        assertEquals(Optional.empty(), userRepository.deleteUserByIdReturning(id));
+    }
+
+    @Test
+    void deleteUserByIdReturning_ReturnsNamesOfDeletedUser() {
+        Long id = jdbcTemplate.queryForObject("SELECT max(id) FROM users", Long.class);
+        String firstName = jdbcTemplate.queryForObject("SELECT first_name FROM users WHERE id = ?", String.class, id);
+        String lastName = jdbcTemplate.queryForObject("SELECT last_name FROM users WHERE id = ?", String.class, id);
+
+        DeletedUser deleted = userRepository.deleteUserByIdReturning(id).orElseThrow();
+
+        assertEquals(id, deleted.getId());
+        assertEquals(firstName, deleted.getFirstName());
+        assertEquals(lastName, deleted.getLastName());
+    }
+}
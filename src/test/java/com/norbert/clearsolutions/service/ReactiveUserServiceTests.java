@@ -0,0 +1,127 @@
+package com.norbert.clearsolutions.service;
+
+import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserUpdateDTO;
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.exception.BadRequestException;
+import com.norbert.clearsolutions.exception.UserNotFoundException;
+import com.norbert.clearsolutions.mapper.UserDTOMapper;
+import com.norbert.clearsolutions.repository.ReactiveUserRepository;
+import com.norbert.clearsolutions.service.impl.ReactiveUserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUserServiceTests {
+
+    @Mock
+    private ReactiveUserRepository userRepository;
+
+    @Spy
+    private UserDTOMapper userDTOMapper = new UserDTOMapper();
+
+    @InjectMocks
+    private ReactiveUserServiceImpl userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "minUserAge", 18);
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 10);
+        user = User.builder().id(1L).email("john.doe@example.com").firstName("John").lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1)).version(3L).build();
+    }
+
+    @Test
+    void createUser_NotAdult_ErrorsWithoutTouchingDatabase() {
+        UserDTO userDTO = UserDTO.builder().email("a@example.com").firstName("A").lastName("B").birthDate(LocalDate.now()).build();
+
+        StepVerifier.create(userService.createUser(userDTO))
+                .expectError(BadRequestException.class)
+                .verify();
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUser_UserDoesNotExist_ErrorsWithUserNotFound() {
+        Mockito.when(userRepository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.getUser("1"))
+                .expectError(UserNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getUser_InvalidId_ErrorsWithBadRequest() {
+        StepVerifier.create(userService.getUser("invalid"))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void updateUser_MissingRequiredField_ErrorsWithoutTouchingDatabase() {
+        UserUpdateDTO update = UserUpdateDTO.builder().id(1L).firstName("John").lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1)).build();
+
+        StepVerifier.create(userService.updateUser(update))
+                .expectError(BadRequestException.class)
+                .verify();
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void patchUser_WritesOnlyChangedColumnsGuardedByVersion() {
+        UserUpdateDTO patch = UserUpdateDTO.builder().id(1L).firstName("John").lastName("Smith").build();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Mono.just(user));
+        Mockito.when(userRepository.updateColumns(1L, 3L, Map.of("last_name", "Smith"))).thenReturn(Mono.just(4L));
+
+        StepVerifier.create(userService.patchUser(patch))
+                .expectNextMatches(patched -> patched.getLastName().equals("Smith") && patched.getVersion() == 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void patchUser_ConcurrentWrite_ErrorsWithOptimisticLockingFailure() {
+        UserUpdateDTO patch = UserUpdateDTO.builder().id(1L).lastName("Smith").build();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Mono.just(user));
+        Mockito.when(userRepository.updateColumns(eq(1L), eq(3L), anyMap())).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.patchUser(patch))
+                .expectError(ObjectOptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void deleteUsers_ReportsDeletedAndMissingIds() {
+        Mockito.when(userRepository.deleteAllByIdReturningIds(List.of(1L, 2L))).thenReturn(Flux.just(2L));
+
+        StepVerifier.create(userService.deleteUsers(List.of(1L, 2L)))
+                .expectNextMatches(result -> result.getDeleted().equals(List.of(2L)) && result.getMissing().equals(List.of(1L)))
+                .verifyComplete();
+    }
+
+    @Test
+    void searchByBirthDateRange_FromAfterTo_ErrorsWithBadRequest() {
+        StepVerifier.create(userService.searchByBirthDateRange(LocalDate.of(2000, 1, 1), LocalDate.of(1990, 1, 1)))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+}
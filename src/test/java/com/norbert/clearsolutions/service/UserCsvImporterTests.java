@@ -0,0 +1,69 @@
+package com.norbert.clearsolutions.service;
+
+import com.norbert.clearsolutions.cache.UserTableVersion;
+import com.norbert.clearsolutions.exception.BadRequestException;
+import com.norbert.clearsolutions.index.BirthDateHistogram;
+import com.norbert.clearsolutions.index.UserNameIndex;
+import com.norbert.clearsolutions.index.UserUniquenessFilter;
+import com.norbert.clearsolutions.service.impl.UserCsvImporter;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCsvImporterTests {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private UserUniquenessFilter uniquenessFilter;
+
+    @Mock
+    private BirthDateHistogram birthDateHistogram;
+
+    @Mock
+    private UserNameIndex userNameIndex;
+
+    private UserCsvImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        importer = new UserCsvImporter(jdbcTemplate, validator, uniquenessFilter, birthDateHistogram, userNameIndex, new UserTableVersion(), 2, 2, 18);
+    }
+
+    @Test
+    void importUsers_MissingRequiredColumns_ThrowsBadRequestBeforeTouchingDatabase() {
+        InputStream csv = csv("email,firstName,address\na@example.com,Ann,Main St\n");
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> importer.importUsers(csv, rejection -> fail("No rejection expected")));
+
+        assertEquals("Missing CSV columns: lastName, birthDate", exception.getMessage());
+        Mockito.verifyNoInteractions(jdbcTemplate, validator, uniquenessFilter, birthDateHistogram);
+    }
+
+    @Test
+    void importUsers_EmptyFile_ThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> importer.importUsers(csv(""), rejection -> fail("No rejection expected")));
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,253 @@
+package com.norbert.clearsolutions.service;
+
+import com.norbert.clearsolutions.entity.User;
+import com.norbert.clearsolutions.exception.UserUniqueConstraint;
+import com.norbert.clearsolutions.service.impl.UserInsertCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+
+class UserInsertCoalescerTests {
+    private final FakeUsersTable table = new FakeUsersTable();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private UserInsertCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        callers.shutdownNow();
+        if (coalescer != null) {
+            coalescer.destroy();
+        }
+    }
+
+    @Test
+    void insert_ConcurrentCallers_ShareOneBatchAndGetTheirOwnIds() throws Exception {
+        coalescer = start(4, Duration.ofSeconds(5));
+
+        List<CompletableFuture<Long>> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(submit(user("user" + i + "@example.com", "+38000000000" + i)));
+        }
+
+        Set<Long> distinctIds = new HashSet<>();
+        for (CompletableFuture<Long> id : ids) {
+            distinctIds.add(id.get());
+        }
+        assertEquals(4, distinctIds.size());
+        assertEquals(1, coalescer.batchCount());
+        assertEquals(4, coalescer.insertCount());
+    }
+
+    @Test
+    void insert_ConflictsInBatch_OneCallerWinsOthersGetTheirConstraint() throws Exception {
+        table.insert("taken@example.com", "+380999999999");
+        coalescer = start(4, Duration.ofSeconds(5));
+
+        CompletableFuture<Long> sameEmail1 = submit(user("same@example.com", "+380000000001"));
+        CompletableFuture<Long> sameEmail2 = submit(user("same@example.com", "+380000000002"));
+        CompletableFuture<Long> takenEmail = submit(user("taken@example.com", "+380000000003"));
+        CompletableFuture<Long> takenPhone = submit(user("other@example.com", "+380999999999"));
+
+        CompletableFuture.allOf(sameEmail1, sameEmail2, takenEmail, takenPhone).exceptionally(e -> null).join();
+        CompletableFuture<Long> loser = sameEmail1.isCompletedExceptionally() ? sameEmail1 : sameEmail2;
+        CompletableFuture<Long> winner = loser == sameEmail1 ? sameEmail2 : sameEmail1;
+        assertNotNull(winner.get());
+        assertEquals(UserUniqueConstraint.EMAIL, constraintOf(loser));
+        assertEquals(UserUniqueConstraint.EMAIL, constraintOf(takenEmail));
+        assertEquals(UserUniqueConstraint.PHONE, constraintOf(takenPhone));
+        assertEquals(1, coalescer.batchCount());
+    }
+
+    @Test
+    void insert_DatabaseDown_EveryCallerGetsTheFailure() throws Exception {
+        table.failInserts = true;
+        coalescer = start(2, Duration.ofSeconds(5));
+
+        CompletableFuture<Long> a = submit(user("a@example.com", null));
+        CompletableFuture<Long> b = submit(user("b@example.com", null));
+
+        assertInstanceOf(IllegalStateException.class, assertThrows(Exception.class, a::get).getCause());
+        assertInstanceOf(IllegalStateException.class, assertThrows(Exception.class, b::get).getCause());
+    }
+
+    @Test
+    void insert_RowRejectedInBatch_OnlyItsCallerFails() throws Exception {
+        coalescer = start(3, Duration.ofSeconds(5));
+
+        CompletableFuture<Long> a = submit(user("a@example.com", null));
+        User tooLong = user("b@example.com", null);
+        tooLong.setFirstName("A".repeat(31));
+        CompletableFuture<Long> b = submit(tooLong);
+        CompletableFuture<Long> c = submit(user("c@example.com", null));
+
+        assertNotNull(a.get());
+        assertNotNull(c.get());
+        assertInstanceOf(DataIntegrityViolationException.class, assertThrows(Exception.class, b::get).getCause());
+        assertEquals(1, coalescer.batchCount());
+    }
+
+    @Test
+    void insert_Disabled_Throws() {
+        coalescer = new UserInsertCoalescer(table.jdbcTemplate(), false, 10, Duration.ofMillis(1));
+        coalescer.afterPropertiesSet();
+
+        assertFalse(coalescer.isEnabled());
+        assertThrows(IllegalStateException.class, () -> coalescer.insert(user("a@example.com", null)));
+    }
+
+    private UserInsertCoalescer start(int maxBatchSize, Duration maxDelay) {
+        UserInsertCoalescer started = new UserInsertCoalescer(table.jdbcTemplate(), true, maxBatchSize, maxDelay);
+        started.afterPropertiesSet();
+        return started;
+    }
+
+    private CompletableFuture<Long> submit(User user) {
+        return CompletableFuture.supplyAsync(() -> coalescer.insert(user), callers);
+    }
+
+    private static UserUniqueConstraint constraintOf(CompletableFuture<Long> id) {
+        Exception exception = assertThrows(Exception.class, id::get);
+        DuplicateKeyException duplicate = assertInstanceOf(DuplicateKeyException.class, exception.getCause());
+        return UserUniqueConstraint.find(duplicate).orElseThrow();
+    }
+
+    private static User user(String email, String phone) {
+        return User.builder()
+                .email(email)
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .phone(phone)
+                .build();
+    }
+
+    /**
+     * Plays the users table behind the JDBC calls of the coalescer: the batched insert skips rows
+     * whose email or phone is taken, like {@code ON CONFLICT DO NOTHING}, and fails as a whole
+     * when a first name is longer than its column.
+     */
+    private static class FakeUsersTable {
+        private final Map<String, Optional<String>> phonesByEmail = new HashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+        private volatile boolean failInserts;
+
+        synchronized void insert(String email, String phone) {
+            phonesByEmail.put(email, Optional.ofNullable(phone));
+        }
+
+        JdbcTemplate jdbcTemplate() {
+            JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+            Mockito.when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Object>>any()))
+                    .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection()));
+            return jdbcTemplate;
+        }
+
+        private Connection connection() throws Exception {
+            Connection connection = Mockito.mock(Connection.class);
+            Mockito.when(connection.createArrayOf(anyString(), any())).thenAnswer(invocation -> {
+                Array array = Mockito.mock(Array.class);
+                Mockito.when(array.getArray()).thenReturn(invocation.getArgument(1));
+                return array;
+            });
+            Mockito.when(connection.prepareStatement(startsWith("INSERT"))).thenAnswer(invocation -> statement(this::insertBatch));
+            Mockito.when(connection.prepareStatement(startsWith("SELECT"))).thenAnswer(invocation -> statement(this::selectTakenEmails));
+            return connection;
+        }
+
+        private PreparedStatement statement(Query query) throws Exception {
+            PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+            Map<Integer, Object[]> parameters = new HashMap<>();
+            Mockito.doAnswer(invocation -> parameters.put(invocation.getArgument(0),
+                            (Object[]) invocation.<Array>getArgument(1).getArray()))
+                    .when(statement).setArray(anyInt(), any());
+            Mockito.when(statement.executeQuery()).thenAnswer(invocation -> resultSet(query.run(parameters)));
+            return statement;
+        }
+
+        private synchronized List<Map<String, Object>> insertBatch(Map<Integer, Object[]> parameters) {
+            if (failInserts) {
+                throw new IllegalStateException("Connection reset");
+            }
+            for (Object firstName : parameters.get(2)) {
+                if (((String) firstName).length() > 30) {
+                    throw new DataIntegrityViolationException("value too long for type character varying(30)");
+                }
+            }
+            Object[] emails = parameters.get(1);
+            Object[] phones = parameters.get(6);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int i = 0; i < emails.length; i++) {
+                String email = (String) emails[i];
+                String phone = (String) phones[i];
+                boolean phoneTaken = phone != null && phonesByEmail.containsValue(Optional.of(phone));
+                if (phonesByEmail.containsKey(email) || phoneTaken) {
+                    continue;
+                }
+                insert(email, phone);
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", ids.incrementAndGet());
+                row.put("email", email);
+                row.put("phone", phone);
+                rows.add(row);
+            }
+            return rows;
+        }
+
+        private synchronized List<Map<String, Object>> selectTakenEmails(Map<Integer, Object[]> parameters) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Object email : parameters.get(1)) {
+                if (phonesByEmail.containsKey(email)) {
+                    rows.add(Map.of("email", email));
+                }
+            }
+            return rows;
+        }
+
+        private static ResultSet resultSet(List<Map<String, Object>> rows) throws Exception {
+            ResultSet resultSet = Mockito.mock(ResultSet.class);
+            int[] position = {-1};
+            Mockito.when(resultSet.next()).thenAnswer(invocation -> ++position[0] < rows.size());
+            Mockito.when(resultSet.getString(anyString()))
+                    .thenAnswer(invocation -> (String) rows.get(position[0]).get(invocation.<String>getArgument(0)));
+            Mockito.when(resultSet.getString(anyInt()))
+                    .thenAnswer(invocation -> (String) rows.get(position[0]).get("email"));
+            Mockito.when(resultSet.getLong(anyString()))
+                    .thenAnswer(invocation -> (Long) rows.get(position[0]).get(invocation.<String>getArgument(0)));
+            return resultSet;
+        }
+
+        @FunctionalInterface
+        private interface Query {
+            List<Map<String, Object>> run(Map<Integer, Object[]> parameters);
+        }
+    }
+}
@@ -1,13 +1,30 @@
 package com.norbert.clearsolutions.service;
 
+import com.norbert.clearsolutions.cache.UserCache;
+import com.norbert.clearsolutions.cache.UserTableVersion;
+import com.norbert.clearsolutions.dto.HistogramInterval;
+import com.norbert.clearsolutions.dto.UserBatchResultDTO;
+import com.norbert.clearsolutions.dto.UserBulkDeleteResultDTO;
 import com.norbert.clearsolutions.dto.UserDTO;
+import com.norbert.clearsolutions.dto.UserPageDTO;
 import com.norbert.clearsolutions.dto.UserUpdateDTO;
 import com.norbert.clearsolutions.entity.User;
 import com.norbert.clearsolutions.exception.BadRequestException;
 import com.norbert.clearsolutions.exception.UserNotFoundException;
+import com.norbert.clearsolutions.index.BirthDateHistogram;
+import com.norbert.clearsolutions.index.UserNameIndex;
+import com.norbert.clearsolutions.index.UserUniquenessFilter;
 import com.norbert.clearsolutions.mapper.UserDTOMapper;
-import com.norbert.clearsolutions.repository.UserRepository;
+import com.norbert.clearsolutions.repository.DeletedUser;
+import com.norbert.clearsolutions.repository.UserStore;
+import com.norbert.clearsolutions.service.impl.BirthDateCursor;
+import com.norbert.clearsolutions.service.impl.UserCsvExporter;
+import com.norbert.clearsolutions.service.impl.UserInsertCoalescer;
+import com.norbert.clearsolutions.service.impl.UserCsvImporter;
 import com.norbert.clearsolutions.service.impl.UserServiceImpl;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,12 +32,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.util.ReflectionTestUtils;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,11 +57,38 @@ import static org.mockito.ArgumentMatchers.*;
 class UserServiceTests {
 
     @Mock
-    private UserRepository userRepository;
+    private UserStore userRepository;
 
     @Mock
     private UserDTOMapper userDTOMapper;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private UserUniquenessFilter uniquenessFilter;
+
+    @Mock
+    private BirthDateHistogram birthDateHistogram;
+
+    @Mock
+    private UserTableVersion userTableVersion;
+
+    @Mock
+    private UserNameIndex userNameIndex;
+
+    @Mock
+    private UserCsvImporter userCsvImporter;
+
+    @Mock
+    private UserCsvExporter userCsvExporter;
+
+    @Mock
+    private UserInsertCoalescer userInsertCoalescer;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -47,9 +101,36 @@ class UserServiceTests {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(userService, "minUserAge", minAge);
-        userDTO = new UserDTO(null, "john.doe@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789");
-        user = new User(1L, "John", "Doe", "john.doe@example.com", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789");
-        userUpdateDTO = new UserUpdateDTO(1L, "john.update@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "456 New St", "+380987654321");
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 100);
+        ReflectionTestUtils.setField(userService, "maxAutocompleteSize", 50);
+        Mockito.lenient().when(uniquenessFilter.mightContainEmail(anyString())).thenReturn(true);
+        Mockito.lenient().when(uniquenessFilter.mightContainPhone(anyString())).thenReturn(true);
+        userDTO = new UserDTO(null, "john.doe@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789", null);
+        user = new User(1L, "John", "Doe", "john.doe@example.com", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789", 0L);
+        userUpdateDTO = new UserUpdateDTO(1L, "john.update@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "456 New St", "+380987654321", null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getUser_LoadsThroughCache() {
+        UserDTO mapped = new UserDTO(1L, "john.doe@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "+380123456789", 0L);
+        Mockito.when(userCache.get(eq(1L), any()))
+                .thenAnswer(invocation -> ((Function<Long, UserDTO>) invocation.getArgument(1)).apply(1L));
+        Mockito.when(userRepository.findUserDTOById(1L)).thenReturn(Optional.of(mapped));
+
+        assertEquals(mapped, userService.getUser("1"));
+        Mockito.verifyNoInteractions(userDTOMapper);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getUser_UserDoesNotExist_ThrowsUserNotFoundException() {
+        Mockito.when(userCache.get(eq(1L), any()))
+                .thenAnswer(invocation -> ((Function<Long, UserDTO>) invocation.getArgument(1)).apply(1L));
+        Mockito.when(userRepository.findUserDTOById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.getUser("1"));
     }
 
     @Test
@@ -59,35 +140,118 @@ class UserServiceTests {
     }
 
     @Test
-    void createUser_ShouldThrowException_IfEmailTaken() {
-        Mockito.when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(true);
-        assertThrows(BadRequestException.class, () -> userService.createUser(userDTO));
+    void createUser_ShouldPropagateConstraintViolation_IfEmailTaken() {
+        Mockito.when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"users_email_key\""));
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(userDTO));
+        Mockito.verifyNoInteractions(birthDateHistogram);
     }
 
     @Test
-    void createUser_ShouldThrowException_IfPhoneTaken() {
-        Mockito.when(userRepository.existsByPhone(userDTO.getPhone())).thenReturn(true);
-        assertThrows(BadRequestException.class, () -> userService.createUser(userDTO));
+    void createUser_Saved_CountsBirthDate() {
+        Mockito.when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
+
+        userService.createUser(userDTO);
+
+        Mockito.verify(birthDateHistogram).add(userDTO.getBirthDate());
+        Mockito.verify(userNameIndex).add(user.getId(), userDTO.getEmail(), userDTO.getFirstName(), userDTO.getLastName());
+        Mockito.verify(userTableVersion).bump();
+    }
+
+    @Test
+    void createUser_CoalescingEnabled_InsertsThroughCoalescer() {
+        Mockito.when(userInsertCoalescer.isEnabled()).thenReturn(true);
+        Mockito.when(userInsertCoalescer.insert(any(User.class))).thenReturn(7L);
+
+        assertEquals(7L, userService.createUser(userDTO));
+
+        Mockito.verify(userRepository, Mockito.never()).saveAndFlush(any(User.class));
+        Mockito.verify(birthDateHistogram).add(userDTO.getBirthDate());
+        Mockito.verify(userNameIndex).add(7L, userDTO.getEmail(), userDTO.getFirstName(), userDTO.getLastName());
+        Mockito.verify(userTableVersion).bump();
+    }
+
+    @Test
+    void createUser_ShouldPropagateConstraintViolation_IfPhoneTaken() {
+        Mockito.when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"users_phone_key\""));
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(userDTO));
     }
+
     @Test
     void createUser_PhoneIsNull_ShouldNotThrowException() {
         userDTO.setPhone(null);
-        Mockito.when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        Mockito.when(userRepository.save(any(User.class))).thenReturn(user);
+        Mockito.when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
         assertDoesNotThrow(() -> userService.createUser(userDTO));
-        Mockito.verify(userRepository).save(any(User.class));
+        Mockito.verify(userRepository).saveAndFlush(any(User.class));
     }
 
     @Test
-    void createUser_SuccessfulCreation() {
-        Mockito.when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(false);
-        Mockito.when(userRepository.existsByPhone(userDTO.getPhone())).thenReturn(false);
-        Mockito.when(userRepository.save(any(User.class))).thenReturn(user);
+    void createUser_SuccessfulCreation_SingleInsertWithoutPreChecks() {
+        Mockito.when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
         Long id = userService.createUser(userDTO);
         assertEquals(user.getId(), id);
+        Mockito.verify(userRepository).saveAndFlush(any(User.class));
+        Mockito.verifyNoMoreInteractions(userRepository);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUsers_ReportsIdOrErrorPerItem() {
+        UserDTO invalid = new UserDTO(null, "bad", "Ann", "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+        UserDTO takenEmail = new UserDTO(null, "taken@example.com", "Bob", "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+        UserDTO duplicateInBatch = new UserDTO(null, userDTO.getEmail(), "Tom", "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 10);
+
+        ConstraintViolation<UserDTO> violation = Mockito.mock(ConstraintViolation.class);
+        Mockito.when(violation.getMessage()).thenReturn("Invalid email format");
+        Mockito.when(validator.validate(any(UserDTO.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == invalid ? Set.of(violation) : Set.of());
+        Mockito.when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+        Mockito.when(userRepository.findExistingPhones(anyCollection())).thenReturn(List.of());
+        Mockito.when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(created -> created.setId(42L));
+            return users;
+        });
+
+        List<UserBatchResultDTO> results = userService.createUsers(List.of(userDTO, invalid, takenEmail, duplicateInBatch));
+
+        assertEquals(4, results.size());
+        assertEquals(42L, results.get(0).getId());
+        assertNull(results.get(0).getError());
+        assertEquals("Invalid email format", results.get(1).getError());
+        assertEquals("The email is already taken", results.get(2).getError());
+        assertEquals("The email is already taken", results.get(3).getError());
+        assertNull(results.get(3).getId());
+        Mockito.verify(birthDateHistogram, Mockito.times(1)).add(userDTO.getBirthDate());
+    }
+
+    @Test
+    void createUsers_ValueLongerThanColumn_ReportsOnlyThatItem() {
+        UserDTO longName = new UserDTO(null, "long@example.com", "A".repeat(31), "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+        ReflectionTestUtils.setField(userService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        Mockito.when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        Mockito.when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(created -> created.setId(42L));
+            return users;
+        });
+
+        List<UserBatchResultDTO> results = userService.createUsers(List.of(longName, userDTO));
+
+        assertEquals("First name can not be longer than 30 characters", results.get(0).getError());
+        assertNull(results.get(0).getId());
+        assertEquals(42L, results.get(1).getId());
+        Mockito.verify(userRepository).saveAll(Mockito.<List<User>>argThat(users -> users.size() == 1));
+    }
 
+    @Test
+    void createUsers_TooLargeBatch_ThrowsBadRequestException() {
+        List<UserDTO> batch = List.of(userDTO, userDTO, userDTO, userDTO);
+        assertThrows(BadRequestException.class, () -> userService.createUsers(batch));
+        Mockito.verifyNoInteractions(userRepository);
+    }
 
     @Test
     void updateUser_EmailAlreadyTaken_ThrowsException() {
@@ -115,9 +279,87 @@ class UserServiceTests {
         Mockito.when(userRepository.existsByPhone(userUpdateDTO.getPhone())).thenReturn(false);
         Mockito.when(userRepository.save(any(User.class))).thenReturn(user);
 
+        LocalDate oldBirthDate = user.getBirthDate();
+        userUpdateDTO.setBirthDate(LocalDate.of(1985, 6, 15));
+
         assertDoesNotThrow(() -> userService.updateUser(userUpdateDTO));
         Mockito.verify(userRepository).save(any(User.class));
+        Mockito.verify(birthDateHistogram).move(oldBirthDate, LocalDate.of(1985, 6, 15));
+        Mockito.verify(userCache).invalidate(userUpdateDTO.getId());
+    }
+    @Test
+    void patchUser_OnlySuppliedFieldsAreChanged() {
+        UserUpdateDTO patch = UserUpdateDTO.builder().id(1L).lastName("Smith").version(0L).build();
+        String email = user.getEmail();
+        String phone = user.getPhone();
+        String address = user.getAddress();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.saveAndFlush(user)).thenReturn(user);
+
+        userService.patchUser(patch);
+
+        assertEquals("Smith", user.getLastName());
+        assertEquals(email, user.getEmail());
+        assertEquals(phone, user.getPhone());
+        assertEquals(address, user.getAddress());
+        Mockito.verify(userRepository).findById(1L);
+        Mockito.verify(userRepository).saveAndFlush(user);
+        Mockito.verifyNoMoreInteractions(userRepository);
+        Mockito.verify(birthDateHistogram).move(user.getBirthDate(), user.getBirthDate());
+        Mockito.verify(userCache).invalidate(1L);
+    }
+
+    @Test
+    void patchUser_StaleVersion_ThrowsOptimisticLockingFailure() {
+        user.setVersion(3L);
+        UserUpdateDTO patch = UserUpdateDTO.builder().id(1L).lastName("Smith").version(2L).build();
+        String lastName = user.getLastName();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> userService.patchUser(patch));
+        assertEquals(lastName, user.getLastName());
+    }
+
+    @Test
+    void patchUser_UserDoesNotExist_ThrowsUserNotFoundException() {
+        UserUpdateDTO patch = UserUpdateDTO.builder().id(1L).lastName("Smith").build();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.patchUser(patch));
+    }
+
+    @Test
+    void patchUser_NotAdult_ThrowsBadRequestException() {
+        UserUpdateDTO patch = UserUpdateDTO.builder().id(1L).birthDate(LocalDate.now()).build();
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThrows(BadRequestException.class, () -> userService.patchUser(patch));
+        Mockito.verify(userRepository, Mockito.never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void validateUserDetails_DefinitelyAbsentValues_SkipDatabaseChecks() {
+        Mockito.when(uniquenessFilter.mightContainEmail(userUpdateDTO.getEmail())).thenReturn(false);
+        Mockito.when(uniquenessFilter.mightContainPhone(userUpdateDTO.getPhone())).thenReturn(false);
+
+        assertDoesNotThrow(() ->
+                ReflectionTestUtils.invokeMethod(userService, "validateUserDetails", userUpdateDTO, user));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void createUsers_DefinitelyAbsentValues_SkipExistenceQueries() {
+        Mockito.when(uniquenessFilter.mightContainEmail(userDTO.getEmail())).thenReturn(false);
+        Mockito.when(uniquenessFilter.mightContainPhone(userDTO.getPhone())).thenReturn(false);
+        Mockito.when(userRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.createUsers(List.of(userDTO));
+
+        Mockito.verify(userRepository, Mockito.never()).findExistingEmails(anyCollection());
+        Mockito.verify(userRepository, Mockito.never()).findExistingPhones(anyCollection());
+        Mockito.verify(uniquenessFilter).add(userDTO.getEmail(), userDTO.getPhone());
     }
+
     @Test
     void validateUserDetails_ThrowsException_IfNotAdult() {
         userUpdateDTO.setBirthDate(LocalDate.now().minusYears(minAge - 1));
@@ -177,7 +419,7 @@ class UserServiceTests {
 
     @Test
     void deleteUser_SuccessfulDeletion() {
-        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(userRepository.deleteUserByIdReturning(1L)).thenReturn(Optional.of(deletedUser(1L, user.getBirthDate())));
         assertDoesNotThrow(() -> userService.deleteUser("1"));
     }
 
@@ -189,24 +431,142 @@ class UserServiceTests {
 
     @Test
     void deleteUser_UserDoesNotExist_ThrowsUserNotFoundException() {
-        Mockito.when(userRepository.existsById(anyLong())).thenReturn(false);
+        Mockito.when(userRepository.deleteUserByIdReturning(anyLong())).thenReturn(Optional.empty());
         assertThrows(UserNotFoundException.class, () -> userService.deleteUser("1"));
+        Mockito.verifyNoInteractions(userCache, birthDateHistogram, userNameIndex, userTableVersion);
     }
 
     @Test
-    void deleteUser_ValidId_DeletesUser() {
-        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+    void deleteUser_ValidId_DeletesUserWithSingleStatement() {
+        Mockito.when(userRepository.deleteUserByIdReturning(1L)).thenReturn(Optional.of(deletedUser(1L, user.getBirthDate())));
         assertDoesNotThrow(() -> userService.deleteUser("1"));
-        Mockito.verify(userRepository).deleteById(1L);
+        Mockito.verify(userRepository).deleteUserByIdReturning(1L);
+        Mockito.verifyNoMoreInteractions(userRepository);
+        Mockito.verify(birthDateHistogram).remove(user.getBirthDate());
+        Mockito.verify(userNameIndex).remove(1L, "user1@example.com", "First1", "Last1");
+        Mockito.verify(userTableVersion).bump();
+        Mockito.verify(userCache).invalidate(1L);
     }
 
     @Test
     void deleteUser_ExistingUser_DeleteFails() {
-        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
-        Mockito.doThrow(new RuntimeException("Database error")).when(userRepository).deleteById(1L);
+        Mockito.doThrow(new RuntimeException("Database error")).when(userRepository).deleteUserByIdReturning(1L);
         assertThrows(RuntimeException.class, () -> userService.deleteUser("1"));
     }
 
+    @Test
+    void deleteUsers_ReportsDeletedAndMissingIds() {
+        LocalDate firstBirthDate = LocalDate.of(1980, 1, 1);
+        LocalDate thirdBirthDate = LocalDate.of(1990, 1, 1);
+        Mockito.when(userRepository.deleteAllByIdReturning(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(deletedUser(3L, thirdBirthDate), deletedUser(1L, firstBirthDate)));
+
+        UserBulkDeleteResultDTO result = userService.deleteUsers(List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(List.of(1L, 3L), result.getDeleted());
+        assertEquals(List.of(2L), result.getMissing());
+        Mockito.verify(userCache).invalidateAll(Set.of(1L, 3L));
+        Mockito.verify(birthDateHistogram).remove(firstBirthDate);
+        Mockito.verify(birthDateHistogram).remove(thirdBirthDate);
+    }
+
+    private static DeletedUser deletedUser(Long id, LocalDate birthDate) {
+        return new DeletedUser() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return "user" + id + "@example.com";
+            }
+
+            @Override
+            public String getFirstName() {
+                return "First" + id;
+            }
+
+            @Override
+            public String getLastName() {
+                return "Last" + id;
+            }
+
+            @Override
+            public LocalDate getBirthDate() {
+                return birthDate;
+            }
+        };
+    }
+
+    @Test
+    void autocomplete_KeepsIndexOrderAndDropsUsersThatNoLongerMatch() {
+        UserDTO john = UserDTO.builder().id(2L).email("john@example.com").firstName("John").lastName("Doe").build();
+        UserDTO renamed = UserDTO.builder().id(3L).email("ann@example.com").firstName("Ann").lastName("Lee").build();
+        UserDTO jones = UserDTO.builder().id(1L).email("mary@example.com").firstName("Mary").lastName("Jones").build();
+        Mockito.when(userNameIndex.find("Jo", 10)).thenReturn(List.of(2L, 3L, 1L, 4L));
+        Mockito.when(userRepository.findUserDTOsByIdIn(List.of(2L, 3L, 1L, 4L))).thenReturn(List.of(jones, renamed, john));
+
+        assertEquals(List.of(john, jones), userService.autocomplete("Jo", 10));
+    }
+
+    @Test
+    void autocomplete_NoMatches_SkipsQuery() {
+        Mockito.when(userNameIndex.find("zz", 10)).thenReturn(List.of());
+
+        assertEquals(List.of(), userService.autocomplete("zz", 10));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void autocomplete_BlankPrefixOrInvalidLimit_ThrowsBadRequestException() {
+        assertThrows(BadRequestException.class, () -> userService.autocomplete(" ", 10));
+        assertThrows(BadRequestException.class, () -> userService.autocomplete("jo", 0));
+        assertThrows(BadRequestException.class, () -> userService.autocomplete("jo", 51));
+        Mockito.verifyNoInteractions(userNameIndex, userRepository);
+    }
+
+    @Test
+    void deleteUsers_EmptyList_ThrowsBadRequestException() {
+        assertThrows(BadRequestException.class, () -> userService.deleteUsers(List.of()));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void countByBirthDateRange_ValidDates_AnsweredByHistogram() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(1990, 12, 31);
+        Mockito.when(birthDateHistogram.count(from, to)).thenReturn(42L);
+
+        assertEquals(42L, userService.countByBirthDateRange(from, to));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void countByBirthDateRange_FromDateAfterToDate_ThrowsBadRequestException() {
+        LocalDate from = LocalDate.of(1990, 1, 2);
+        LocalDate to = LocalDate.of(1990, 1, 1);
+        assertThrows(BadRequestException.class, () -> userService.countByBirthDateRange(from, to));
+        assertThrows(BadRequestException.class, () -> userService.birthDateHistogram(from, to, HistogramInterval.YEAR));
+        Mockito.verifyNoInteractions(birthDateHistogram);
+    }
+
+    @Test
+    void exportUsers_FromDateAfterToDate_ThrowsBadRequestException() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(1990, 1, 1);
+        assertThrows(BadRequestException.class, () -> userService.exportUsers(from, to, OutputStream.nullOutputStream()));
+        Mockito.verifyNoInteractions(userCsvExporter);
+    }
+
+    @Test
+    void exportUsers_OpenRange_ExportsEveryone() {
+        OutputStream csv = OutputStream.nullOutputStream();
+        Mockito.when(userCsvExporter.exportUsers(null, null, csv)).thenReturn(3L);
+
+        assertEquals(3L, userService.exportUsers(null, null, csv));
+    }
+
     @Test
     void searchByBirthDateRange_FromDateAfterToDate_ThrowsBadRequestException() {
         LocalDate from = LocalDate.now();
@@ -220,12 +580,13 @@ class UserServiceTests {
 
         LocalDate from = LocalDate.now().minusYears(1);
         LocalDate to = LocalDate.now();
-        List<User> users = List.of(user);
-        Mockito.when(userRepository.findAll()).thenReturn(users);
+        userDTO.setBirthDate(targetBirthDate);
+        Mockito.when(userRepository.findUserDTOsByBirthDateBetween(from, to)).thenReturn(List.of(userDTO));
 
         List<UserDTO> returnedUsers = userService.searchByBirthDateRange(from, to);
         assertEquals(1, returnedUsers.size());
-        Mockito.verify(userRepository).findAll();
+        Mockito.verify(userRepository).findUserDTOsByBirthDateBetween(from, to);
+        Mockito.verifyNoMoreInteractions(userRepository);
     }
 
     @Test
@@ -233,15 +594,10 @@ class UserServiceTests {
         LocalDate startRange = LocalDate.of(1990, 1, 1);
         LocalDate endRange = LocalDate.of(1995, 1, 1);
 
-        User userAtStart = new User(1L, "John", "Doe", "john.doe@example.com", startRange, "123 Main St", "+380123456789");
-        User userAtEnd = new User(2L, "Jane", "Doe", "jane.doe@example.com", endRange, "456 Elm St", "+380987654321");
-
-        UserDTO userAtStartDTO = new UserDTO(1L, "john.doe@example.com", "John", "Doe", startRange, "123 Main St", "+380123456789");
-        UserDTO userAtEndDTO = new UserDTO(2L, "jane.doe@example.com", "Jane", "Doe", endRange, "456 Elm St", "+380987654321");
+        UserDTO userAtStartDTO = new UserDTO(1L, "john.doe@example.com", "John", "Doe", startRange, "123 Main St", "+380123456789", null);
+        UserDTO userAtEndDTO = new UserDTO(2L, "jane.doe@example.com", "Jane", "Doe", endRange, "456 Elm St", "+380987654321", null);
 
-        Mockito.when(userRepository.findAll()).thenReturn(List.of(userAtStart, userAtEnd));
-        Mockito.when(userDTOMapper.apply(userAtStart)).thenReturn(userAtStartDTO);
-        Mockito.when(userDTOMapper.apply(userAtEnd)).thenReturn(userAtEndDTO);
+        Mockito.when(userRepository.findUserDTOsByBirthDateBetween(startRange, endRange)).thenReturn(List.of(userAtStartDTO, userAtEndDTO));
 
         List<UserDTO> results = userService.searchByBirthDateRange(startRange, endRange);
 
@@ -256,11 +612,9 @@ class UserServiceTests {
         LocalDate to = LocalDate.of(2000, 1, 1);
         LocalDate birthDateWithinRange = LocalDate.of(1995, 6, 15);
 
-        User userWithinRange = new User(1L, "Alice", "Smith", "alice.smith@example.com", birthDateWithinRange, "789 Oak St", "+380112233445");
-        UserDTO userWithinRangeDTO = new UserDTO(1L, "alice.smith@example.com", "Alice", "Smith", birthDateWithinRange, "789 Oak St", "+380112233445");
+        UserDTO userWithinRangeDTO = new UserDTO(1L, "alice.smith@example.com", "Alice", "Smith", birthDateWithinRange, "789 Oak St", "+380112233445", null);
 
-        Mockito.when(userRepository.findAll()).thenReturn(List.of(userWithinRange));
-        Mockito.when(userDTOMapper.apply(userWithinRange)).thenReturn(userWithinRangeDTO);
+        Mockito.when(userRepository.findUserDTOsByBirthDateBetween(from, to)).thenReturn(List.of(userWithinRangeDTO));
 
         List<UserDTO> results = userService.searchByBirthDateRange(from, to);
 
@@ -271,16 +625,111 @@ class UserServiceTests {
     void searchByBirthDateRange_ExcludeUsersOutsideRange() {
         LocalDate from = LocalDate.of(1990, 1, 1);
         LocalDate to = LocalDate.of(2000, 1, 1);
-        LocalDate birthDateBeforeRange = LocalDate.of(1980, 6, 15);
-        LocalDate birthDateAfterRange = LocalDate.of(2010, 6, 15);
-        User userBeforeRange = new User(1L, "John", "Doe", "john.doe@example.com", birthDateBeforeRange, "123 Main St", "+380123456789");
-        User userAfterRange = new User(2L, "Jane", "Doe", "jane.doe@example.com", birthDateAfterRange, "124 Main St", "+380123456788");
-
-        Mockito.when(userRepository.findAll()).thenReturn(List.of(userBeforeRange, userAfterRange));
+        Mockito.when(userRepository.findUserDTOsByBirthDateBetween(from, to)).thenReturn(List.of());
 
         List<UserDTO> results = userService.searchByBirthDateRange(from, to);
 
         assertTrue(results.isEmpty());
+        Mockito.verifyNoInteractions(userDTOMapper);
+    }
+
+    @Test
+    void searchByBirthDateRangePage_MoreRowsThanLimit_ReturnsCursorAfterLastUser() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        UserDTO first = UserDTO.builder().id(7L).birthDate(LocalDate.of(1991, 1, 1)).build();
+        UserDTO second = UserDTO.builder().id(3L).birthDate(LocalDate.of(1992, 1, 1)).build();
+        UserDTO third = UserDTO.builder().id(5L).birthDate(LocalDate.of(1992, 1, 1)).build();
+        Mockito.when(userRepository.findUserDTOPageByBirthDateBetween(from, to, Limit.of(3)))
+                .thenReturn(List.of(first, second, third));
+
+        UserPageDTO page = userService.searchByBirthDateRange(from, to, 2, null);
+
+        assertEquals(List.of(first, second), page.getUsers());
+        assertEquals(new BirthDateCursor(LocalDate.of(1992, 1, 1), 3L), BirthDateCursor.decode(page.getNext()));
+    }
+
+    @Test
+    void searchByBirthDateRangePage_WithCursor_ContinuesAfterIt() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        String cursor = new BirthDateCursor(LocalDate.of(1992, 1, 1), 3L).encode();
+        UserDTO last = UserDTO.builder().id(5L).birthDate(LocalDate.of(1992, 1, 1)).build();
+        Mockito.when(userRepository.findUserDTOPageByBirthDateBetweenAfter(from, to, LocalDate.of(1992, 1, 1), 3L, Limit.of(3)))
+                .thenReturn(List.of(last));
+
+        UserPageDTO page = userService.searchByBirthDateRange(from, to, 2, cursor);
+
+        assertEquals(List.of(last), page.getUsers());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void searchByBirthDateRangePage_LimitOutOfBounds_ThrowsBadRequestException() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+
+        assertThrows(BadRequestException.class, () -> userService.searchByBirthDateRange(from, to, 0, null));
+        assertThrows(BadRequestException.class, () -> userService.searchByBirthDateRange(from, to, 101, null));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void searchByBirthDateRangePage_MalformedCursor_ThrowsBadRequestException() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+
+        assertThrows(BadRequestException.class, () -> userService.searchByBirthDateRange(from, to, 10, "not a cursor"));
+        assertThrows(BadRequestException.class, () -> userService.searchByBirthDateRange(from, to, 10, "AAAA"));
+    }
+
+    @Test
+    void streamByBirthDateRange_FromDateAfterToDate_ThrowsBadRequestException() {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.minusDays(1);
+        assertThrows(BadRequestException.class, () -> userService.streamByBirthDateRange(from, to, userDTO -> { }));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void streamByBirthDateRange_PassesEveryProjectedRowToConsumer() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        UserDTO mapped = new UserDTO(1L, "john.doe@example.com", "John", "Doe", LocalDate.of(1995, 1, 1), "123 Main St", "+380123456789", null);
+        Mockito.when(userRepository.streamUserDTOsByBirthDateBetween(from, to)).thenReturn(Stream.of(mapped));
+
+        List<UserDTO> consumed = new ArrayList<>();
+        userService.streamByBirthDateRange(from, to, consumed::add);
+
+        assertEquals(List.of(mapped), consumed);
+        Mockito.verifyNoInteractions(userDTOMapper);
+    }
+
+    @Test
+    void getUsersVersion_ReplicasAndRecentWrite_ReturnsNull() {
+        ReflectionTestUtils.setField(userService, "replicaUrls", List.of("jdbc:postgresql://replica/users"));
+        ReflectionTestUtils.setField(userService, "readYourWritesWindow", Duration.ofSeconds(5));
+        Mockito.when(userTableVersion.changedWithin(Duration.ofSeconds(5))).thenReturn(true);
+
+        assertNull(userService.getUsersVersion());
+    }
+
+    @Test
+    void getUsersVersion_NoReplicas_ReturnsCurrentVersion() {
+        ReflectionTestUtils.setField(userService, "replicaUrls", List.of());
+        Mockito.when(userTableVersion.current()).thenReturn("abc-7");
+
+        assertEquals("abc-7", userService.getUsersVersion());
+        Mockito.verify(userTableVersion, Mockito.never()).changedWithin(any());
+    }
+
+    @Test
+    void importUsers_Sharded_ThrowsBadRequestException() {
+        ReflectionTestUtils.setField(userService, "shardUrls", List.of("jdbc:postgresql://shard1/users"));
+
+        assertThrows(BadRequestException.class,
+                () -> userService.importUsers(new ByteArrayInputStream(new byte[0]), rejection -> {}));
+        Mockito.verifyNoInteractions(userCsvImporter);
     }
 
-}
\ No newline at end of file
+}